@@ -0,0 +1,56 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the spreading handles used by reflection chains against plain {@link Method#invoke(Object, Object...)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MethodInvocationBenchmark {
+    private ReflTestClass instance;
+    private Method method;
+    private MethodHandle handle;
+    private Object[] args;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        instance = new ReflTestClass(1, 2, 3);
+        method = ReflTestClass.class.getMethod("getNumbersPlusParam", int.class);
+        method.trySetAccessible();
+        handle = new MethodMapProvider().getMethodMapFor(ReflTestClass.class).getHandleById(ReflectionUtil.getMethodId(method));
+        args = new Object[]{4};
+    }
+
+    @Benchmark
+    public Object methodInvoke() throws Exception {
+        return method.invoke(instance, args);
+    }
+
+    @Benchmark
+    public Object handleInvoke() throws Throwable {
+        return (Object) handle.invokeExact((Object) instance, args);
+    }
+}
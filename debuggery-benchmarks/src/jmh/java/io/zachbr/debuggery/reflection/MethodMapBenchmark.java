@@ -0,0 +1,42 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MethodMapBenchmark {
+
+    @Param({"java.lang.String", "java.lang.Thread", "java.util.ArrayList", "java.util.concurrent.ConcurrentHashMap"})
+    public String className;
+    private Class<?> clazz;
+
+    @Setup
+    public void setup() throws ClassNotFoundException {
+        clazz = Class.forName(className);
+    }
+
+    @Benchmark
+    public MethodMap construct() {
+        return new MethodMap(clazz);
+    }
+}
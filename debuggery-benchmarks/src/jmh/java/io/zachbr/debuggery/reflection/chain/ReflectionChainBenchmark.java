@@ -0,0 +1,66 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.chain;
+
+import io.zachbr.debuggery.TestLoggerImpl;
+import io.zachbr.debuggery.reflection.MethodMapProvider;
+import io.zachbr.debuggery.reflection.ReflTestClass;
+import io.zachbr.debuggery.reflection.ReflectionUtil;
+import io.zachbr.debuggery.reflection.types.TypeHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReflectionChainBenchmark {
+    private ReflectionChainFactory chainFactory;
+    private ReflTestClass instance;
+    private String[] simpleChain;
+    private String[] nestedChain;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        TypeHandler typeHandler = new TypeHandler(new TestLoggerImpl());
+        chainFactory = new ReflectionChainFactory(typeHandler, new MethodMapProvider(), new TestLoggerImpl());
+        instance = new ReflTestClass(1, 2, 3);
+
+        simpleChain = new String[]{ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getNumbersPlusParam", int.class)), "4"};
+        nestedChain = new String[]{
+                ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass")),
+                ReflectionUtil.getMethodId(ReflTestClass.ReflSubClass.class.getMethod("get1234", int.class)), "5"
+        };
+    }
+
+    @Benchmark
+    public ReflectionResult simpleChain() {
+        return chainFactory.runChain(simpleChain, instance, null);
+    }
+
+    @Benchmark
+    public ReflectionResult nestedChain() {
+        return chainFactory.runChain(nestedChain, instance, null);
+    }
+
+    @Benchmark
+    public ReflectionResult nestedChainUncached() {
+        chainFactory.clearPlanCache();
+        return chainFactory.runChain(nestedChain, instance, null);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.types;
+
+import io.zachbr.debuggery.TestLoggerImpl;
+import io.zachbr.debuggery.reflection.types.implementations.AnEnum;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InstantiateTypesBenchmark {
+    private static final Class<?>[] PRIMITIVES = {int.class, double.class, boolean.class, long.class};
+    private static final List<String> PRIMITIVE_INPUT = List.of("42", "3.14", "true", "9001");
+    private static final Class<?>[] ENUMS = {AnEnum.class, AnEnum.class};
+    private static final List<String> ENUM_INPUT = List.of("VAL_2", "val_5");
+    private static final Class<?>[] COLLECTIONS = {List.class, Set.class};
+    private static final List<String> COLLECTION_INPUT = List.of("java.lang.Integer:1,2,3,4,5", "java.lang.String:a,b,c");
+    private TypeHandler typeHandler;
+
+    @Setup
+    public void setup() {
+        typeHandler = new TypeHandler(new TestLoggerImpl());
+    }
+
+    @Benchmark
+    public Object[] primitives() throws InputException {
+        return typeHandler.instantiateTypes(PRIMITIVES, PRIMITIVE_INPUT);
+    }
+
+    @Benchmark
+    public Object[] enums() throws InputException {
+        return typeHandler.instantiateTypes(ENUMS, ENUM_INPUT);
+    }
+
+    @Benchmark
+    public Object[] collections() throws InputException {
+        return typeHandler.instantiateTypes(COLLECTIONS, COLLECTION_INPUT);
+    }
+}
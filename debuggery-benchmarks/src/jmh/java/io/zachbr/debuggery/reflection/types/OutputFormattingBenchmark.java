@@ -0,0 +1,80 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.types;
+
+import io.zachbr.debuggery.TestLoggerImpl;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OutputFormattingBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+    private TypeHandler typeHandler;
+    private int[] intArray;
+    private Object[] objectArray;
+    private List<String> list;
+    private Map<String, Integer> map;
+
+    @Setup
+    public void setup() {
+        typeHandler = new TypeHandler(new TestLoggerImpl());
+        intArray = new int[size];
+        objectArray = new Object[size];
+        list = new ArrayList<>(size);
+        map = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            intArray[i] = i;
+            objectArray[i] = UUID.nameUUIDFromBytes(new byte[]{(byte) i, (byte) (i >> 8)});
+            list.add("element " + i);
+            map.put("key " + i, i);
+        }
+    }
+
+    @Benchmark
+    public String intArray() {
+        return typeHandler.getOutputFor(intArray);
+    }
+
+    @Benchmark
+    public String objectArray() {
+        return typeHandler.getOutputFor(objectArray);
+    }
+
+    @Benchmark
+    public String list() {
+        return typeHandler.getOutputFor(list);
+    }
+
+    @Benchmark
+    public String map() {
+        return typeHandler.getOutputFor(map);
+    }
+
+    @Benchmark
+    public String mapBudgeted() {
+        return typeHandler.getOutputFor(map, new OutputBudget(16384, 1000));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import io.zachbr.debuggery.reflection.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompletionBenchmark {
+    private MethodMapProvider provider;
+    private MethodMap rootMap;
+    private List<String> shortInput;
+    private List<String> longInput;
+    private CompletionSession session;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        provider = new MethodMapProvider();
+        rootMap = provider.getMethodMapFor(Thread.class);
+        session = new CompletionSession(provider);
+
+        String subClass = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"));
+        String get1234 = ReflectionUtil.getMethodId(ReflTestClass.ReflSubClass.class.getMethod("get1234", int.class));
+        shortInput = List.of("get");
+        longInput = List.of(subClass, get1234, "5", "clo");
+    }
+
+    @Benchmark
+    public List<String> rootPrefix() {
+        return CommandUtil.getReflectiveCompletions(shortInput, rootMap, provider);
+    }
+
+    @Benchmark
+    public List<String> chainPrefix() {
+        return CommandUtil.getReflectiveCompletions(longInput, provider.getMethodMapFor(ReflTestClass.class), provider);
+    }
+
+    @Benchmark
+    public List<String> chainPrefixSession() {
+        return session.complete(longInput, provider.getMethodMapFor(ReflTestClass.class));
+    }
+}
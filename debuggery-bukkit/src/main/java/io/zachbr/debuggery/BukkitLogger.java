@@ -17,15 +17,33 @@
 
 package io.zachbr.debuggery;
 
+import io.zachbr.debuggery.util.DropOldestQueue;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Logs through the plugin's logger
+ * <p>
+ * Debug messages are queued and written out in batches by a background thread, both to the log and to any
+ * subscribed listeners, so that whatever is being debugged never waits on them. If they arrive faster than
+ * they can be written the oldest queued messages are dropped.
+ */
 public class BukkitLogger implements Logger {
+    private static final int DEBUG_QUEUE_CAPACITY = 4096;
+    private static final int MAX_DEBUG_BATCH = 256;
+    private static final long DEBUG_DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
     private final java.util.logging.Logger pluginLogger;
-    private final Set<CommandSender> debugListeners = new HashSet<>();
+    private final Set<CommandSender> debugListeners = new CopyOnWriteArraySet<>();
+    private final DropOldestQueue<String> debugQueue = new DropOldestQueue<>(DEBUG_QUEUE_CAPACITY);
+    private volatile @Nullable Thread debugWriter;
+    private volatile boolean shutDown;
+    private long reportedDrops; // guarded by this
 
     BukkitLogger(java.util.logging.Logger logger) {
         this.pluginLogger = logger;
@@ -46,20 +64,131 @@ public class BukkitLogger implements Logger {
         pluginLogger.severe(str);
     }
 
+    @Override
+    public boolean isDebugEnabled() {
+        return DebuggeryBukkit.isDebugMode();
+    }
+
     @Override
     public void debug(String str) {
-        if (!DebuggeryBukkit.isDebugMode()) {
+        if (!isDebugEnabled()) {
             return;
         }
 
-        final String colorOut = ChatColor.GOLD + "[DEBUG] " + str;
-        pluginLogger.info(colorOut);
-        for (CommandSender sender : debugListeners) {
-            sender.sendMessage(colorOut);
+        debugQueue.offer(str);
+
+        Thread writer = this.debugWriter;
+        if (writer == null) {
+            writer = startDebugWriter();
+        }
+
+        if (writer == null) {
+            // shut down, there's no writer coming back for these so write them here instead
+            while (writeDebugBatch()) {
+                // keep going until the queue is empty
+            }
+            return;
+        }
+
+        // the writer checks in on its own regularly, only hurry it along when we're getting close to dropping
+        if (debugQueue.size() >= DEBUG_QUEUE_CAPACITY / 2) {
+            LockSupport.unpark(writer);
         }
     }
 
     public Set<CommandSender> getDebugListeners() {
         return this.debugListeners;
     }
+
+    /**
+     * Gets the number of debug messages dropped because they were logged faster than they could be written
+     *
+     * @return dropped message count
+     */
+    public long getDroppedDebugMessages() {
+        return debugQueue.getDroppedCount();
+    }
+
+    /**
+     * Stops the debug writer thread, once everything already queued has been written
+     * <p>
+     * The writer is not started again, anything logged afterwards is written out by the thread logging it.
+     */
+    public void shutdown() {
+        final Thread writer;
+        synchronized (this) {
+            this.shutDown = true;
+            writer = this.debugWriter;
+            this.debugWriter = null;
+        }
+
+        if (writer == null) {
+            return;
+        }
+
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized @Nullable Thread startDebugWriter() {
+        Thread writer = this.debugWriter;
+        if (writer == null && !shutDown) {
+            writer = new Thread(this::runDebugWriter, "Debuggery Debug Writer");
+            writer.setDaemon(true);
+            this.debugWriter = writer;
+            writer.start();
+        }
+
+        return writer;
+    }
+
+    private void runDebugWriter() {
+        while (this.debugWriter == Thread.currentThread()) {
+            if (!writeDebugBatch()) {
+                LockSupport.parkNanos(this, DEBUG_DRAIN_INTERVAL_NANOS);
+            }
+        }
+
+        // we've been replaced or shut down, don't leave anything behind
+        while (writeDebugBatch()) {
+            // keep going until the queue is empty
+        }
+    }
+
+    /**
+     * Writes out the next batch of queued debug messages
+     *
+     * @return false if there was nothing to write
+     */
+    private boolean writeDebugBatch() {
+        final List<String> batch = new ArrayList<>(Math.min(debugQueue.size(), MAX_DEBUG_BATCH));
+        // only hold the lock to take the batch, writing it out can be slow
+        synchronized (this) {
+            if (debugQueue.drainTo(batch, MAX_DEBUG_BATCH) == 0) {
+                return false;
+            }
+
+            final long dropped = debugQueue.getDroppedCount();
+            if (dropped != reportedDrops) {
+                batch.add(0, "... " + (dropped - reportedDrops) + " older messages dropped");
+                reportedDrops = dropped;
+            }
+        }
+
+        final String[] lines = new String[batch.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = ChatColor.GOLD + "[DEBUG] " + batch.get(i);
+        }
+
+        pluginLogger.info(String.join("\n", lines));
+        for (CommandSender sender : debugListeners) {
+            sender.sendMessage(lines);
+        }
+
+        return true;
+    }
 }
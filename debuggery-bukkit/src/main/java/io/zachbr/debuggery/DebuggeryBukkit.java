@@ -19,31 +19,189 @@ package io.zachbr.debuggery;
 
 import io.zachbr.debuggery.commands.*;
 import io.zachbr.debuggery.commands.base.CommandBase;
+import io.zachbr.debuggery.commands.base.CommandReflection;
+import io.zachbr.debuggery.reflection.chain.AsyncChainPolicy;
+import io.zachbr.debuggery.reflection.types.ResultCursor;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
 import io.zachbr.debuggery.reflection.types.handlers.bukkit.BukkitBootstrap;
+import io.zachbr.debuggery.util.ExpiringCache;
+import io.zachbr.debuggery.watch.WatchManager;
 import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Entity;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.Nullable;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DebuggeryBukkit extends DebuggeryBase {
     private final DebuggeryJavaPlugin javaPlugin;
+    private final Executor mainThreadExecutor;
     private final Map<String, CommandBase> commands = new HashMap<>();
+    private @Nullable ExecutorService chainExecutor;
+    private @Nullable AsyncChainPolicy asyncChainPolicy;
+    private int outputMaxChars = DEFAULT_OUTPUT_MAX_CHARS;
+    private int outputMaxElements = DEFAULT_OUTPUT_MAX_ELEMENTS;
+    private long outputTimeLimitNanos;
+    private int pageSize;
+    private ExpiringCache<String, ResultCursor> resultCursors;
+    private WatchManager watchManager;
 
     DebuggeryBukkit(DebuggeryJavaPlugin plugin, Logger logger) {
         super(logger);
         this.javaPlugin = plugin;
+        this.mainThreadExecutor = task -> Bukkit.getScheduler().runTask(javaPlugin, task);
     }
 
     void onEnable() {
+        javaPlugin.saveDefaultConfig();
         printSystemInfo();
         new BukkitBootstrap(getTypeHandler(), getLogger());
 
+        if (javaPlugin.getConfig().getBoolean("method-map-cache.enabled", true)) {
+            this.loadMethodMapStore(getMethodMapStoreFile(), Bukkit.getServer().getClass());
+        }
+
+        this.loadOutputSettings();
+        this.loadAsyncChainPolicy();
+        this.watchManager = new WatchManager(this);
         this.registerCommands();
+        Bukkit.getPluginManager().registerEvents(new ResultCursorListener(this), javaPlugin);
+        this.registerMetrics();
+        this.warmUpMethodMaps();
     }
 
     void onDisable() {
+        if (this.watchManager != null) {
+            this.watchManager.stopAll();
+        }
+
+        if (this.chainExecutor != null) {
+            // interrupts any chain still waiting on a main thread task that will now never run
+            this.chainExecutor.shutdownNow();
+            this.chainExecutor = null;
+            this.asyncChainPolicy = null;
+        }
+
+        this.shutdownBatchPool();
+        this.unregisterMetrics();
+
+        if (this.resultCursors != null) {
+            this.resultCursors.clear();
+        }
+
+        if (javaPlugin.getConfig().getBoolean("method-map-cache.enabled", true)) {
+            this.saveMethodMapStore(getMethodMapStoreFile(), Bukkit.getServer().getClass());
+        }
+
+        this.getMethodMapProvider().setStore(null);
         this.getMethodMapProvider().clearCache();
+        this.clearChainPlans();
+        this.getTypeHandler().clearResolvedHandlers();
+        ((BukkitLogger) this.getLogger()).shutdown();
+    }
+
+    private Path getMethodMapStoreFile() {
+        return javaPlugin.getDataFolder().toPath().resolve("method-maps.bin");
+    }
+
+    private void loadOutputSettings() {
+        final FileConfiguration config = javaPlugin.getConfig();
+
+        this.outputMaxChars = Math.max(0, config.getInt("output.max-characters", DEFAULT_OUTPUT_MAX_CHARS));
+        this.outputMaxElements = Math.max(0, config.getInt("output.max-elements", DEFAULT_OUTPUT_MAX_ELEMENTS));
+        this.outputTimeLimitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, config.getLong("time-budget.output-micros", 50000)));
+        this.setChainTimeBudget(TimeUnit.MICROSECONDS.toNanos(Math.max(0, config.getLong("time-budget.chain-micros", 50000))));
+        this.setBatchTimeBudget(TimeUnit.MICROSECONDS.toNanos(Math.max(0, config.getLong("time-budget.batch-tick-micros", 5000))),
+                TimeUnit.MICROSECONDS.toNanos(Math.max(0, config.getLong("time-budget.batch-micros", 2000000))));
+
+        this.pageSize = Math.max(1, config.getInt("paging.page-size", 20));
+        final long cursorTimeout = Math.max(1, config.getLong("paging.cursor-timeout-seconds", 60));
+        final int maxCursors = Math.max(1, config.getInt("paging.max-cursors", 64));
+        this.resultCursors = new ExpiringCache<>(TimeUnit.SECONDS.toMillis(cursorTimeout), maxCursors);
+    }
+
+    private void loadAsyncChainPolicy() {
+        final FileConfiguration config = javaPlugin.getConfig();
+        if (!config.getBoolean("async-chains.enabled", true)) {
+            return;
+        }
+
+        Set<Class<?>> safeClasses = new HashSet<>();
+        for (String className : config.getStringList("async-chains.safe-classes")) {
+            Class<?> clazz = getConfiguredClass(className);
+            if (clazz != null) {
+                safeClasses.add(clazz);
+            }
+        }
+
+        Map<Class<?>, Set<String>> safeMethods = new HashMap<>();
+        for (String entry : config.getStringList("async-chains.safe-methods")) {
+            final int split = entry.indexOf('#');
+            if (split <= 0 || split == entry.length() - 1) {
+                getLogger().warn("Ignoring async safe method " + entry + ", expected Type#methodName");
+                continue;
+            }
+
+            Class<?> clazz = getConfiguredClass(entry.substring(0, split));
+            if (clazz != null) {
+                safeMethods.computeIfAbsent(clazz, k -> new HashSet<>()).add(entry.substring(split + 1));
+            }
+        }
+
+        final AtomicInteger threadId = new AtomicInteger();
+        this.chainExecutor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "Debuggery Chain Worker #" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.asyncChainPolicy = new AsyncChainPolicy(mainThreadExecutor, chainExecutor, safeClasses, safeMethods);
+    }
+
+    private void warmUpMethodMaps() {
+        final FileConfiguration config = javaPlugin.getConfig();
+        if (!config.getBoolean("warm-up.enabled", true)) {
+            return;
+        }
+
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (CommandBase command : commands.values()) {
+            if (command instanceof CommandReflection) {
+                classes.add(((CommandReflection) command).getReflectionClass());
+            }
+        }
+
+        // chains reflect against the runtime class, not the API interface
+        classes.add(Bukkit.getServer().getClass());
+        for (World world : Bukkit.getWorlds()) {
+            classes.add(world.getClass());
+        }
+
+        final String craftBukkitPackage = Bukkit.getServer().getClass().getPackage().getName();
+        for (String className : config.getStringList("warm-up.extra-classes")) {
+            Class<?> clazz = getConfiguredClass(className.replace("{craftbukkit}", craftBukkitPackage));
+            if (clazz != null) {
+                classes.add(clazz);
+            }
+        }
+
+        this.warmUpMethodMaps(classes);
+    }
+
+    private @Nullable Class<?> getConfiguredClass(String className) {
+        try {
+            return Class.forName(className, false, this.getClass().getClassLoader());
+        } catch (ClassNotFoundException ex) {
+            getLogger().warn("Ignoring unknown class " + className + " in config");
+            return null;
+        }
     }
 
     private void registerCommands() {
@@ -51,10 +209,13 @@ public class DebuggeryBukkit extends DebuggeryBase {
         this.registerCommand(new ChunkCommand(this));
         this.registerCommand(new DebugCommand(this));
         this.registerCommand(new DebuggeryCommand(this));
+        this.registerCommand(new EntitiesCommand(this));
         this.registerCommand(new EntityCommand(this));
         this.registerCommand(new ItemCommand(this));
+        this.registerCommand(new PageCommand(this));
         this.registerCommand(new PlayerCommand(this));
         this.registerCommand(new ServerCommand(this));
+        this.registerCommand(new WatchCommand(this));
         this.registerCommand(new WorldCommand(this));
 
         for (CommandBase c : commands.values()) {
@@ -75,6 +236,89 @@ public class DebuggeryBukkit extends DebuggeryBase {
         return Collections.unmodifiableMap(commands);
     }
 
+    /**
+     * Gets the policy used to run reflection chains off the main thread
+     *
+     * @return async chain policy, or null if async chains are disabled
+     */
+    public @Nullable AsyncChainPolicy getAsyncChainPolicy() {
+        return asyncChainPolicy;
+    }
+
+    /**
+     * Gets an executor that runs each task on the main thread, starting on the next tick
+     *
+     * @return main thread executor
+     */
+    public Executor getMainThreadExecutor() {
+        return mainThreadExecutor;
+    }
+
+    /**
+     * Gets the manager running every /dwatch
+     *
+     * @return watch manager
+     */
+    public WatchManager getWatchManager() {
+        return watchManager;
+    }
+
+    /**
+     * Gets the number of elements shown on each page of a large result
+     *
+     * @return page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets the paged result most recently stored for the given sender
+     *
+     * @param sender sender to look up
+     * @return result cursor or null if there is none or it expired
+     */
+    public @Nullable ResultCursor getResultCursor(CommandSender sender) {
+        return resultCursors.get(getCursorKey(sender));
+    }
+
+    /**
+     * Stores a paged result for the given sender, replacing any previous one
+     *
+     * @param sender sender to store for
+     * @param cursor result cursor
+     */
+    public void setResultCursor(CommandSender sender, ResultCursor cursor) {
+        resultCursors.put(getCursorKey(sender), cursor);
+    }
+
+    /**
+     * Removes the paged result stored for the given sender, if any
+     *
+     * @param sender sender to remove for
+     */
+    public void clearResultCursor(CommandSender sender) {
+        resultCursors.remove(getCursorKey(sender));
+    }
+
+    /**
+     * Removes every stored paged result
+     */
+    public void clearResultCursors() {
+        resultCursors.clear();
+    }
+
+    private static String getCursorKey(CommandSender sender) {
+        // entities keep their id across relogs and renames, everything else only has a name
+        return sender instanceof Entity ? ((Entity) sender).getUniqueId().toString() : sender.getName();
+    }
+
+    @Override
+    public OutputBudget newOutputBudget() {
+        final OutputBudget budget = new OutputBudget(outputMaxChars, outputMaxElements);
+        return outputTimeLimitNanos == 0 ? budget : budget.withTimeLimit(outputTimeLimitNanos);
+    }
+
     public JavaPlugin getJavaPlugin() {
         return javaPlugin;
     }
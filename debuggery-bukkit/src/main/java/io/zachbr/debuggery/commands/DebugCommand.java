@@ -120,7 +120,7 @@ public class DebugCommand extends CommandBase {
     }
 
     /**
-     * Sends system information to the specified sender
+     * Sends system information, and Debuggery's own metrics, to the specified sender
      *
      * @param sender what to send to
      */
@@ -128,6 +128,12 @@ public class DebugCommand extends CommandBase {
         for (String line : plugin.getSystemInfo()) {
             sender.sendMessage(ChatColor.GOLD + line);
         }
+
+        for (String line : plugin.getMetrics().getSummary()) {
+            sender.sendMessage(ChatColor.YELLOW + line);
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "Debug Messages Dropped: " + ((BukkitLogger) plugin.getLogger()).getDroppedDebugMessages());
     }
 
     @Override
@@ -0,0 +1,292 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.commands;
+
+import io.zachbr.debuggery.DebuggeryBukkit;
+import io.zachbr.debuggery.commands.base.CommandReflection;
+import io.zachbr.debuggery.reflection.types.InputException;
+import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
+import io.zachbr.debuggery.util.CommandUtil;
+import io.zachbr.debuggery.util.LongIntMap;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+public class EntitiesCommand extends CommandReflection {
+    private static final int TOP_COUNT = 10;
+    private static final List<String> TARGET_COMPLETIONS = Arrays.asList("world", "16", "32", "64");
+    private static final EntityType[] ENTITY_TYPES = EntityType.values();
+    private final DebuggeryBukkit debuggery;
+    private final List<String> classCompletions;
+
+    public EntitiesCommand(DebuggeryBukkit debuggery) {
+        super("dentities", "debuggery.entities", false, Entity.class, debuggery);
+        this.debuggery = debuggery;
+
+        Set<String> classNames = new TreeSet<>(Arrays.asList("Animals", "Entity", "LivingEntity", "Mob", "Monster"));
+        for (EntityType type : ENTITY_TYPES) {
+            if (type.getEntityClass() != null) {
+                classNames.add(type.getEntityClass().getSimpleName());
+            }
+        }
+
+        this.classCompletions = new ArrayList<>(classNames);
+    }
+
+    @Override
+    protected boolean commandLogic(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length < 2) {
+            return false;
+        }
+
+        final Class<? extends Entity> entityClass = getEntityClass(sender, args[0]);
+        if (entityClass == null) {
+            sender.sendMessage(ChatColor.RED + "Not an entity class: " + args[0]);
+            return true;
+        }
+
+        final long start = System.nanoTime();
+        final List<Entity> entities = getEntities(sender, entityClass, args[1]);
+        if (entities == null) {
+            return true;
+        }
+
+        sendSummary(sender, entityClass, entities, start);
+        if (args.length == 2 || entities.isEmpty()) {
+            return true;
+        }
+
+        updateReflectionClass(entityClass);
+        return doBatchReflectionLookups(sender, Arrays.copyOfRange(args, 2, args.length), entities);
+    }
+
+    /**
+     * Resolves an entity class from user input
+     *
+     * @param sender sender the input came from
+     * @param input  class name
+     * @return entity class, or null if the input isn't one
+     */
+    private @Nullable Class<? extends Entity> getEntityClass(CommandSender sender, String input) {
+        final Object resolved;
+        try {
+            resolved = debuggery.getTypeHandler().instantiateTypes(new Class<?>[]{Class.class}, Collections.singletonList(input), new PlatformSender<>(sender))[0];
+        } catch (InputException ex) {
+            return null;
+        }
+
+        if (!(resolved instanceof Class) || !Entity.class.isAssignableFrom((Class<?>) resolved)) {
+            return null;
+        }
+
+        return ((Class<?>) resolved).asSubclass(Entity.class);
+    }
+
+    /**
+     * Collects the entities targeted by the user
+     *
+     * @param sender      sender to send errors to
+     * @param entityClass class of entity to collect
+     * @param target      radius around the sender, "world" for the sender's world, or a world name
+     * @return matching entities, or null if the target couldn't be resolved
+     */
+    private @Nullable List<Entity> getEntities(CommandSender sender, Class<? extends Entity> entityClass, String target) {
+        Double radius = null;
+        try {
+            radius = Double.parseDouble(target);
+        } catch (NumberFormatException ignored) {
+        }
+
+        if (radius != null || target.equalsIgnoreCase("world")) {
+            if (!(sender instanceof Player)) {
+                sender.sendMessage(ChatColor.RED + "Only players can search around themselves, use a world name instead");
+                return null;
+            }
+
+            final Location center = ((Player) sender).getLocation();
+            if (radius == null) {
+                return new ArrayList<>(center.getWorld().getEntitiesByClass(entityClass));
+            }
+
+            if (!(radius > 0)) {
+                sender.sendMessage(ChatColor.RED + "Radius must be positive: " + target);
+                return null;
+            }
+
+            final double radiusSquared = radius * radius;
+            final Location scratch = center.clone();
+            final Collection<Entity> nearby = center.getWorld().getNearbyEntities(center, radius, radius, radius, entity -> {
+                if (!entityClass.isInstance(entity)) {
+                    return false;
+                }
+
+                entity.getLocation(scratch);
+                return scratch.distanceSquared(center) <= radiusSquared;
+            });
+
+            return new ArrayList<>(nearby);
+        }
+
+        final World world = Bukkit.getWorld(target);
+        if (world == null) {
+            sender.sendMessage(ChatColor.RED + "Not a radius or world: " + target);
+            return null;
+        }
+
+        return new ArrayList<>(world.getEntitiesByClass(entityClass));
+    }
+
+    /**
+     * Sends the most common entity types and the most crowded chunks among the given entities
+     *
+     * @param sender      sender to send the summary to
+     * @param entityClass class that was searched for
+     * @param entities    entities found
+     * @param startNanos  when the search started, from {@link System#nanoTime()}
+     */
+    private void sendSummary(CommandSender sender, Class<?> entityClass, List<Entity> entities, long startNanos) {
+        // counted into primitive arrays keyed by type ordinal and chunk key, nothing is boxed per entity
+        final int[] typeCounts = new int[ENTITY_TYPES.length];
+        final long[] chunkKeys = new long[entities.size()];
+        final LongIntMap chunkCounts = new LongIntMap(Math.min(entities.size(), 4096));
+
+        final Location scratch = new Location(null, 0, 0, 0);
+        for (int i = 0; i < entities.size(); i++) {
+            final Entity entity = entities.get(i);
+            entity.getLocation(scratch);
+
+            chunkKeys[i] = getChunkKey(scratch.getBlockX() >> 4, scratch.getBlockZ() >> 4);
+            chunkCounts.increment(chunkKeys[i]);
+            typeCounts[entity.getType().ordinal()]++;
+        }
+
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        sender.sendMessage("Found " + entities.size() + " " + entityClass.getSimpleName() + " in " + chunkCounts.size() + " chunks (" + elapsed + "ms)");
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        sender.sendMessage(ChatColor.GRAY + "Top types:");
+        for (int ordinal : getTopIndices(typeCounts, TOP_COUNT)) {
+            sender.sendMessage("  " + ENTITY_TYPES[ordinal].name().toLowerCase() + ": " + typeCounts[ordinal]);
+        }
+
+        // second pass only breaks down the chunks that made the top list, positions map back into the top list
+        final long[] topChunks = chunkCounts.getTopKeys(TOP_COUNT);
+        final LongIntMap topPositions = new LongIntMap(topChunks.length);
+        for (int i = 0; i < topChunks.length; i++) {
+            topPositions.add(topChunks[i], i + 1);
+        }
+
+        final int[][] chunkTypeCounts = new int[topChunks.length][ENTITY_TYPES.length];
+        for (int i = 0; i < entities.size(); i++) {
+            final int position = topPositions.get(chunkKeys[i]);
+            if (position != 0) {
+                chunkTypeCounts[position - 1][entities.get(i).getType().ordinal()]++;
+            }
+        }
+
+        sender.sendMessage(ChatColor.GRAY + "Top chunks:");
+        for (int i = 0; i < topChunks.length; i++) {
+            final int chunkX = (int) topChunks[i];
+            final int chunkZ = (int) (topChunks[i] >> 32);
+
+            StringBuilder line = new StringBuilder("  ").append(chunkX).append(", ").append(chunkZ).append(": ").append(chunkCounts.get(topChunks[i]));
+            int[] dominant = getTopIndices(chunkTypeCounts[i], 3);
+            for (int j = 0; j < dominant.length; j++) {
+                line.append(j == 0 ? " (" : ", ").append(ENTITY_TYPES[dominant[j]].name().toLowerCase()).append(' ').append(chunkTypeCounts[i][dominant[j]]);
+            }
+
+            sender.sendMessage(dominant.length == 0 ? line.toString() : line.append(')').toString());
+        }
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((long) chunkZ << 32);
+    }
+
+    /**
+     * Gets the indices of the highest non-zero counts
+     *
+     * @param counts counts to search
+     * @param limit  maximum number of indices to return
+     * @return indices, highest count first
+     */
+    private static int[] getTopIndices(int[] counts, int limit) {
+        final LongIntMap nonZero = new LongIntMap(limit);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                nonZero.add(i, counts[i]);
+            }
+        }
+
+        final long[] topKeys = nonZero.getTopKeys(limit);
+        final int[] out = new int[topKeys.length];
+        for (int i = 0; i < topKeys.length; i++) {
+            out[i] = (int) topKeys[i];
+        }
+
+        return out;
+    }
+
+    @Override
+    protected boolean helpLogic(CommandSender sender, String[] args) {
+        sender.sendMessage("Counts entities of a class by type and by chunk, then runs a chain against all of them.");
+        sender.sendMessage("/dentities <class> <radius|world|world name> [chain...]");
+        sender.sendMessage("Chain results are summarized by value rather than listed per entity.");
+        return true;
+    }
+
+    @Override
+    public List<String> tabCompleteLogic(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length == 0) {
+            return classCompletions;
+        }
+
+        if (args.length == 1) {
+            return CommandUtil.getCompletionsMatching(args, classCompletions);
+        }
+
+        if (args.length == 2) {
+            List<String> targets = new ArrayList<>(TARGET_COMPLETIONS);
+            for (World world : Bukkit.getWorlds()) {
+                targets.add(world.getName());
+            }
+
+            return CommandUtil.getCompletionsMatching(args, targets);
+        }
+
+        final Class<? extends Entity> entityClass = getEntityClass(sender, args[0]);
+        if (entityClass == null) {
+            return Collections.emptyList();
+        }
+
+        updateReflectionClass(entityClass);
+        return super.tabCompleteLogic(sender, command, alias, Arrays.copyOfRange(args, 2, args.length));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.commands;
+
+import io.zachbr.debuggery.DebuggeryBukkit;
+import io.zachbr.debuggery.commands.base.CommandBase;
+import io.zachbr.debuggery.reflection.types.ResultCursor;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.*;
+
+public class PageCommand extends CommandBase {
+    private static final int MAX_PAGE_COMPLETIONS = 100;
+    private final DebuggeryBukkit debuggery;
+
+    public PageCommand(DebuggeryBukkit debuggery) {
+        super("dpage", "debuggery.page", false);
+        this.debuggery = debuggery;
+    }
+
+    @Override
+    protected boolean commandLogic(CommandSender sender, Command command, String label, String[] args) {
+        final ResultCursor cursor = debuggery.getResultCursor(sender);
+        if (cursor == null) {
+            sender.sendMessage(ChatColor.RED + "You have no results to page through, they may have expired");
+            return true;
+        }
+
+        int page = 1;
+        if (args.length > 0) {
+            try {
+                page = Integer.parseInt(args[0]);
+            } catch (NumberFormatException ex) {
+                sender.sendMessage(ChatColor.RED + "Not a page number: " + args[0]);
+                return true;
+            }
+        }
+
+        if (page < 1 || page > cursor.getPageCount()) {
+            sender.sendMessage(ChatColor.RED + "Page must be between 1 and " + cursor.getPageCount());
+            return true;
+        }
+
+        sender.sendMessage(cursor.formatPage(page, debuggery.newOutputBudget()));
+        return true;
+    }
+
+    @Override
+    protected boolean helpLogic(CommandSender sender, String[] args) {
+        sender.sendMessage("Shows a page of your last large reflection result.");
+        sender.sendMessage("Results are kept for a short while after they were last viewed.");
+        return true;
+    }
+
+    @Override
+    protected List<String> tabCompleteLogic(CommandSender sender, Command command, String alias, String[] args) {
+        final ResultCursor cursor = debuggery.getResultCursor(sender);
+        if (args.length != 1 || cursor == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> pages = new ArrayList<>();
+        for (int i = 1; i <= Math.min(cursor.getPageCount(), MAX_PAGE_COMPLETIONS); i++) {
+            String page = String.valueOf(i);
+            if (page.startsWith(args[0])) {
+                pages.add(page);
+            }
+        }
+
+        return pages;
+    }
+}
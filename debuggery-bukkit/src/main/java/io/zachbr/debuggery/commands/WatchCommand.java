@@ -0,0 +1,231 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.commands;
+
+import io.zachbr.debuggery.DebuggeryBukkit;
+import io.zachbr.debuggery.commands.base.CommandBase;
+import io.zachbr.debuggery.reflection.MethodMap;
+import io.zachbr.debuggery.util.CommandUtil;
+import io.zachbr.debuggery.util.CompletionSession;
+import io.zachbr.debuggery.watch.Watch;
+import io.zachbr.debuggery.watch.WatchManager;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+public class WatchCommand extends CommandBase {
+    private static final List<String> SUBCOMMANDS = Arrays.asList("list", "player", "server", "stop", "world");
+    private final DebuggeryBukkit debuggery;
+    // weak so that sessions go away with the senders they belong to
+    private final Map<CommandSender, CompletionSession> completionSessions = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public WatchCommand(DebuggeryBukkit debuggery) {
+        super("dwatch", "debuggery.watch", false);
+        this.debuggery = debuggery;
+    }
+
+    @Override
+    protected boolean commandLogic(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 0) {
+            return false;
+        }
+
+        final WatchManager manager = debuggery.getWatchManager();
+        switch (args[0].toLowerCase()) {
+            case "list":
+                return listWatches(sender, manager);
+            case "stop":
+                return stopWatches(sender, manager, args);
+            default:
+                return startWatch(sender, manager, args);
+        }
+    }
+
+    private boolean listWatches(CommandSender sender, WatchManager manager) {
+        final List<Watch> watches = manager.getWatches();
+        if (watches.isEmpty()) {
+            sender.sendMessage("No watches are running");
+            return true;
+        }
+
+        for (Watch watch : watches) {
+            String line = watch.describe() + ChatColor.GRAY + " (" + watch.getOwner().getName() + ")";
+            if (watch.getHistory().size() != 0) {
+                line += ChatColor.GRAY + " latest " + watch.getHistory().getLatest();
+            }
+
+            sender.sendMessage(line);
+        }
+
+        return true;
+    }
+
+    private boolean stopWatches(CommandSender sender, WatchManager manager, String[] args) {
+        if (args.length < 2) {
+            return false;
+        }
+
+        if (args[1].equalsIgnoreCase("all")) {
+            int stopped = 0;
+            for (Watch watch : manager.getWatches()) {
+                if (canControl(sender, watch)) {
+                    manager.stop(watch);
+                    stopped++;
+                }
+            }
+
+            sender.sendMessage("Stopped " + stopped + " watches");
+            return true;
+        }
+
+        final Watch watch;
+        try {
+            watch = manager.getWatch(Integer.parseInt(args[1].replace("#", "")));
+        } catch (NumberFormatException ex) {
+            sender.sendMessage(ChatColor.RED + "Not a watch id: " + args[1]);
+            return true;
+        }
+
+        if (watch == null || !canControl(sender, watch)) {
+            sender.sendMessage(ChatColor.RED + "No such watch: " + args[1]);
+            return true;
+        }
+
+        manager.stop(watch);
+        sender.sendMessage("Stopped watch #" + watch.getId());
+        return true;
+    }
+
+    private boolean startWatch(CommandSender sender, WatchManager manager, String[] args) {
+        final Watch.Target target;
+        try {
+            target = Watch.Target.valueOf(args[0].toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+
+        if (args.length < 3) {
+            return false;
+        }
+
+        if (target != Watch.Target.SERVER && !(sender instanceof Player)) {
+            sender.sendMessage(ChatColor.RED + "Only players can watch their " + target.name().toLowerCase());
+            return true;
+        }
+
+        final int interval;
+        try {
+            interval = Integer.parseInt(args[1]);
+        } catch (NumberFormatException ex) {
+            sender.sendMessage(ChatColor.RED + "Not an interval in ticks: " + args[1]);
+            return true;
+        }
+
+        if (interval < manager.getMinIntervalTicks()) {
+            sender.sendMessage(ChatColor.RED + "Interval must be at least " + manager.getMinIntervalTicks() + " ticks");
+            return true;
+        }
+
+        if (manager.getWatchCount() >= manager.getMaxWatches()) {
+            sender.sendMessage(ChatColor.RED + "The maximum of " + manager.getMaxWatches() + " watches are already running");
+            return true;
+        }
+
+        if (manager.getWatchCount(sender) >= manager.getMaxWatchesPerSender()) {
+            sender.sendMessage(ChatColor.RED + "You already have the maximum of " + manager.getMaxWatchesPerSender() + " watches running");
+            return true;
+        }
+
+        UUID targetId = null;
+        if (target == Watch.Target.WORLD) {
+            targetId = ((Player) sender).getWorld().getUID();
+        } else if (target == Watch.Target.PLAYER) {
+            targetId = ((Player) sender).getUniqueId();
+        }
+
+        final Watch watch = manager.start(sender, target, targetId, Arrays.copyOfRange(args, 2, args.length), interval);
+        if (watch != null) {
+            sender.sendMessage(ChatColor.GRAY + "Started watch #" + watch.getId() + ", stop it with /dwatch stop " + watch.getId());
+        }
+
+        return true;
+    }
+
+    private static boolean canControl(CommandSender sender, Watch watch) {
+        return watch.getOwner().equals(sender) || sender.hasPermission("debuggery.watch.others");
+    }
+
+    @Override
+    protected boolean helpLogic(CommandSender sender, String[] args) {
+        sender.sendMessage("Re-runs a reflection chain every few ticks and tells you when its result changes.");
+        sender.sendMessage("/dwatch <server|world|player> <interval ticks> <chain...>");
+        sender.sendMessage("/dwatch list, /dwatch stop <id|all>");
+        return true;
+    }
+
+    @Override
+    protected List<String> tabCompleteLogic(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length == 0) {
+            return SUBCOMMANDS;
+        }
+
+        if (args.length == 1) {
+            return CommandUtil.getCompletionsMatching(args, SUBCOMMANDS);
+        }
+
+        final String subcommand = args[0].toLowerCase();
+        if (subcommand.equals("stop")) {
+            if (args.length != 2) {
+                return Collections.emptyList();
+            }
+
+            List<String> ids = new ArrayList<>();
+            ids.add("all");
+            for (Watch watch : debuggery.getWatchManager().getWatches()) {
+                if (canControl(sender, watch)) {
+                    ids.add(String.valueOf(watch.getId()));
+                }
+            }
+
+            return CommandUtil.getCompletionsMatching(Arrays.copyOfRange(args, 1, 2), ids);
+        }
+
+        if (args.length == 2) {
+            return Collections.singletonList(String.valueOf(Math.max(20, debuggery.getWatchManager().getMinIntervalTicks())));
+        }
+
+        final Class<?> rootClass;
+        if (subcommand.equals("server")) {
+            rootClass = Bukkit.getServer().getClass();
+        } else if (subcommand.equals("world") && sender instanceof Player) {
+            rootClass = ((Player) sender).getWorld().getClass();
+        } else if (subcommand.equals("player") && sender instanceof Player) {
+            rootClass = sender.getClass();
+        } else {
+            return Collections.emptyList();
+        }
+
+        final MethodMap rootMap = debuggery.getMethodMapProvider().getMethodMapFor(rootClass);
+        final CompletionSession session = completionSessions.computeIfAbsent(sender, k -> new CompletionSession(debuggery.getMethodMapProvider()));
+        return session.complete(Arrays.asList(args).subList(2, args.length), rootMap);
+    }
+}
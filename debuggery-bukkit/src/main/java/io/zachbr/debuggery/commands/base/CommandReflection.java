@@ -20,8 +20,12 @@ package io.zachbr.debuggery.commands.base;
 import io.zachbr.debuggery.DebuggeryBukkit;
 import io.zachbr.debuggery.reflection.MethodMap;
 import io.zachbr.debuggery.reflection.MethodMapProvider;
+import io.zachbr.debuggery.reflection.chain.AsyncChainPolicy;
+import io.zachbr.debuggery.reflection.chain.ChainAggregate;
+import io.zachbr.debuggery.reflection.chain.ChainTimings;
 import io.zachbr.debuggery.reflection.chain.ReflectionResult;
 import io.zachbr.debuggery.reflection.types.InputException;
+import io.zachbr.debuggery.reflection.types.ResultCursor;
 import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
 import io.zachbr.debuggery.util.*;
 import org.apache.commons.lang.Validate;
@@ -31,14 +35,19 @@ import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Base class for all commands that use reflection to dig into Bukkit's API
  */
 public abstract class CommandReflection extends CommandBase {
+    private static final String TIME_FLAG = "--time";
     private final DebuggeryBukkit debuggery;
     private final MethodMapProvider mapCache;
     private MethodMap availableMethods = MethodMap.EMPTY;
+    // weak so that sessions go away with the senders they belong to
+    private final Map<CommandSender, CompletionSession> completionSessions = Collections.synchronizedMap(new WeakHashMap<>());
 
     protected CommandReflection(String name, String permission, boolean requiresPlayer, Class<?> clazz, DebuggeryBukkit plugin) {
         super(name, permission, requiresPlayer);
@@ -51,6 +60,7 @@ public abstract class CommandReflection extends CommandBase {
     protected boolean helpLogic(CommandSender sender, String[] args) {
         sender.sendMessage("Uses reflection to call API methods built into Bukkit.");
         sender.sendMessage("Try using the tab completion to see all available subcommands.");
+        sender.sendMessage("End a chain with " + TIME_FLAG + " to see how long each step took.");
         return true;
     }
 
@@ -63,6 +73,11 @@ public abstract class CommandReflection extends CommandBase {
      * @return true if handled successfully
      */
     protected boolean doReflectionLookups(CommandSender sender, String[] args, Object instance) {
+        final boolean timed = args.length != 0 && args[args.length - 1].equals(TIME_FLAG);
+        if (timed) {
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+
         // 0 args just return info on object itself
 
         if (args.length == 0) {
@@ -86,7 +101,72 @@ public abstract class CommandReflection extends CommandBase {
         }
 
         PlatformSender<?> platformSender = new PlatformSender<>(sender);
-        ReflectionResult chainResult = debuggery.runReflectionChain(args, instance, platformSender);
+        AsyncChainPolicy asyncPolicy = debuggery.getAsyncChainPolicy();
+        if (asyncPolicy == null) {
+            notifySenderOfResult(sender, debuggery.runReflectionChain(args, instance, platformSender, timed));
+        } else {
+            // results are formatted and sent from the chain's worker thread, unless formatting them could read live state
+            debuggery.runReflectionChainAsync(args, instance, platformSender, asyncPolicy, timed)
+                    .thenCompose(chainResult -> {
+                        Executor formatter = asyncPolicy.isAsyncSafe(chainResult.getEndingInstance()) ? Runnable::run : asyncPolicy.getSyncExecutor();
+                        return CompletableFuture.runAsync(() -> notifySenderOfResult(sender, chainResult), formatter);
+                    })
+                    .exceptionally(ex -> {
+                        sender.sendMessage(ChatColor.RED + "Exception running reflection chain - See console for more details!");
+                        ex.printStackTrace();
+                        return null;
+                    });
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs one reflection chain against many instances and sends a summary of the results
+     * <p>
+     * With an async policy the batch is run off the main thread, and split across workers if every step of the
+     * chain is safe there. Chains that aren't safe are run on the main thread a slice of the batch at a time,
+     * rather than handing it each step of each chain separately, and so is every batch without a policy.
+     * A batch that runs out of time reports what it got through, see the time-budget config section.
+     *
+     * @param sender    sender to send information to
+     * @param args      command arguments
+     * @param instances instances of the class type
+     * @return true if handled successfully
+     */
+    protected boolean doBatchReflectionLookups(CommandSender sender, String[] args, List<?> instances) {
+        if (args.length == 0) {
+            return false;
+        }
+
+        if (!availableMethods.containsId(args[0])) {
+            sender.sendMessage(ChatColor.RED + "Unknown or unavailable method");
+            return true;
+        }
+
+        PlatformSender<?> platformSender = new PlatformSender<>(sender);
+        AsyncChainPolicy asyncPolicy = debuggery.getAsyncChainPolicy();
+        final CompletableFuture<ChainAggregate> batch = asyncPolicy == null
+                ? debuggery.runReflectionChainBatchSliced(args, instances, platformSender, debuggery.getMainThreadExecutor())
+                : debuggery.runReflectionChainBatchAsync(args, instances, platformSender, asyncPolicy);
+
+        // tracked values can be anything the chain returned, so they're always formatted on the main thread
+        batch.thenAcceptAsync(aggregate -> sender.sendMessage(aggregate.format(debuggery.getTypeHandler(), debuggery.newOutputBudget())),
+                        debuggery.getMainThreadExecutor())
+                .exceptionally(ex -> {
+                    sender.sendMessage(ChatColor.RED + "Exception running reflection chain - See console for more details!");
+                    ex.printStackTrace();
+                    return null;
+                });
+
+        return true;
+    }
+
+    private void notifySenderOfResult(CommandSender sender, ReflectionResult chainResult) {
+        final ChainTimings timings = chainResult.getTimings();
+        final long outputStart = System.nanoTime();
+        final long outputBytes = timings != null ? ChainTimings.getAllocatedBytes() : 0;
+
         switch (chainResult.getType()) {
             case SUCCESS:
                 notifySenderOfSuccess(sender, chainResult);
@@ -100,11 +180,17 @@ public abstract class CommandReflection extends CommandBase {
             case ARG_MISMATCH:
                 notifySenderOfResultReason(sender, chainResult);
                 break;
+            case TIMED_OUT:
+                notifySenderOfTimeout(sender, chainResult);
+                break;
             default:
                 throw new IllegalArgumentException("Unhandled switch case for result of type: " + chainResult.getType());
         }
 
-        return true;
+        if (timings != null) {
+            timings.recordOutput(System.nanoTime() - outputStart, ChainTimings.getAllocatedBytesSince(outputBytes));
+            sender.sendMessage(ChatColor.GRAY + timings.format());
+        }
     }
 
     private void notifySenderOfException(CommandSender sender, ReflectionResult chainResult) {
@@ -128,8 +214,29 @@ public abstract class CommandReflection extends CommandBase {
         sender.sendMessage(ChatColor.RED + chainResult.getReason());
     }
 
-    private void notifySenderOfSuccess(CommandSender sender, ReflectionResult chainResult) {
+    private void notifySenderOfTimeout(CommandSender sender, ReflectionResult chainResult) {
+        notifySenderOfResultReason(sender, chainResult);
+
         String output = getOutputStringFor(chainResult.getEndingInstance());
+        if (output != null) {
+            sender.sendMessage(ChatColor.GRAY + "Partial result: " + ChatColor.RESET + output);
+        }
+    }
+
+    private void notifySenderOfSuccess(CommandSender sender, ReflectionResult chainResult) {
+        final Object result = chainResult.getEndingInstance();
+        if (ResultCursor.isPageable(result)) {
+            // only format what fits on the first page, the rest waits for /dpage
+            final ResultCursor cursor = new ResultCursor(debuggery.getTypeHandler(), result, debuggery.getPageSize());
+            if (cursor.getPageCount() > 1) {
+                debuggery.setResultCursor(sender, cursor);
+                sender.sendMessage(cursor.formatPage(1, debuggery.newOutputBudget()));
+                sender.sendMessage(ChatColor.GRAY + "Use /dpage <page> to see the other " + (cursor.getPageCount() - 1) + " pages");
+                return;
+            }
+        }
+
+        String output = getOutputStringFor(result);
         if (output != null) {
             sender.sendMessage(output);
         }
@@ -146,6 +253,15 @@ public abstract class CommandReflection extends CommandBase {
         }
     }
 
+    /**
+     * Gets the class this command currently reflects against
+     *
+     * @return reflection class
+     */
+    public Class<?> getReflectionClass() {
+        return availableMethods.getMappedClass();
+    }
+
     /**
      * Convenience method to run objects past the TypeHandler
      *
@@ -153,7 +269,7 @@ public abstract class CommandReflection extends CommandBase {
      * @return textual description of Object
      */
     protected @Nullable String getOutputStringFor(@Nullable Object object) {
-        return debuggery.getTypeHandler().getOutputFor(object);
+        return debuggery.getTypeHandler().getOutputFor(object, debuggery.newOutputBudget());
     }
 
     @Override
@@ -161,6 +277,8 @@ public abstract class CommandReflection extends CommandBase {
         List<String> arguments = Arrays.asList(args);
         MethodMap reflectionMap = this.availableMethods;
 
-        return CommandUtil.getReflectiveCompletions(arguments, reflectionMap, mapCache);
+        CompletionSession session = completionSessions.computeIfAbsent(sender, k -> new CompletionSession(mapCache));
+        debuggery.getMetrics().recordCompletion();
+        return session.complete(arguments, reflectionMap);
     }
 }
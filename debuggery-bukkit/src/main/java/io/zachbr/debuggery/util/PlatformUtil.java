@@ -18,13 +18,15 @@
 package io.zachbr.debuggery.util;
 
 import org.bukkit.Location;
-import org.bukkit.block.Block;
+import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 /**
  * Contains platform specific utilities that I'd rather not
@@ -32,6 +34,7 @@ import java.util.List;
  */
 public class PlatformUtil {
     private static Boolean baseComponentApiPresent = null;
+    private static final ThreadLocal<NearestPoints> nearestPoints = ThreadLocal.withInitial(NearestPoints::new);
 
     /**
      * Checks if we are able to use our fancy chat exceptions
@@ -53,42 +56,48 @@ public class PlatformUtil {
 
     /**
      * Performs a raytrace to check which entity the player is probably looking at
+     * <p>
+     * Each nearby entity's bounding box is tested against the player's line of sight once and the closest hit is
+     * returned, entities behind the first block in the way are ignored.
      *
      * @param player    Player to check
      * @param range     Max distance to search against
-     * @param tolerance How close we want the search to be
+     * @param tolerance How much to grow each entity's bounding box by, so that small or moving entities are easier to hit
      * @return entity player is looking at, or null if we couldn't find one
      */
     public static @Nullable Entity getEntityPlayerLookingAt(Player player, int range, double tolerance) {
-        List<Entity> entities = player.getNearbyEntities(range, range, range);
-
-        for (Block block : player.getLineOfSight(null, range)) {
-            final Location location = block.getLocation();
-            for (Entity entity : entities) {
-                // X
-                if (!(Math.abs(entity.getLocation().getX() - location.getX()) < tolerance)) {
-                    continue;
-                }
-
-                // Y
-                if (!(Math.abs(entity.getLocation().getY() - location.getY()) < tolerance)) {
-                    continue;
-                }
-
-                // Z
-                if (!(Math.abs(entity.getLocation().getX() - location.getX()) < tolerance)) {
-                    continue;
-                }
-
-                return entity;
+        final List<Entity> entities = player.getNearbyEntities(range, range, range);
+        if (entities.isEmpty()) {
+            return null;
+        }
+
+        final Location eye = player.getEyeLocation();
+        final Vector direction = eye.getDirection();
+
+        double maxDistance = range;
+        final RayTraceResult blockHit = player.rayTraceBlocks(range);
+        if (blockHit != null) {
+            maxDistance = Math.min(maxDistance, blockHit.getHitPosition().distance(eye.toVector()));
+        }
+
+        Entity closest = null;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (Entity entity : entities) {
+            final BoundingBox box = entity.getBoundingBox();
+            final double hit = RayUtil.getRayIntersection(eye.getX(), eye.getY(), eye.getZ(), direction.getX(), direction.getY(), direction.getZ(),
+                    box.getMinX() - tolerance, box.getMinY() - tolerance, box.getMinZ() - tolerance,
+                    box.getMaxX() + tolerance, box.getMaxY() + tolerance, box.getMaxZ() + tolerance);
+            if (hit >= 0 && hit <= maxDistance && hit < closestDistance) {
+                closestDistance = hit;
+                closest = entity;
             }
         }
 
-        return null;
+        return closest;
     }
 
     /**
-     * Gets the first entity at the location that's within the specified tolerance
+     * Gets the entity closest to the location, as long as it's within the specified tolerance
      *
      * @param location  location to search at
      * @param range     Max distance to search against
@@ -96,14 +105,35 @@ public class PlatformUtil {
      * @return entity closest to the location, or null if we couldn't find one
      */
     public static @Nullable Entity getEntityNearestTo(Location location, int range, double tolerance) {
-        Collection<Entity> entities = location.getWorld().getNearbyEntities(location, range, range, range);
+        final List<Entity> entities = getNearbyEntities(location, Math.min(range, tolerance));
+        final NearestPoints points = bufferEntityLocations(entities, location.getWorld());
 
-        return entities.stream()
-                .filter(e -> Math.abs(e.getLocation().getX() - location.getX()) < tolerance)
-                .filter(e -> Math.abs(e.getLocation().getY() - location.getY()) < tolerance)
-                .filter(entity -> Math.abs(entity.getLocation().getX() - location.getX()) < tolerance)
-                .findFirst().orElse(null);
+        final int nearest = points.nearest(location.getX(), location.getY(), location.getZ(), tolerance);
+        return nearest == -1 ? null : entities.get(nearest);
+    }
 
+    private static List<Entity> getNearbyEntities(Location location, double radius) {
+        return new ArrayList<>(location.getWorld().getNearbyEntities(location, radius, radius, radius));
     }
 
+    /**
+     * Reads each entity's location into this thread's point buffer, in the same order as the given list
+     *
+     * @param entities entities to read
+     * @param world    world they are in
+     * @return point buffer
+     */
+    private static NearestPoints bufferEntityLocations(List<Entity> entities, World world) {
+        final NearestPoints points = nearestPoints.get();
+        points.clear();
+
+        // Entity#getLocation() allocates a new location every call, copy into one scratch location instead
+        final Location scratch = new Location(world, 0, 0, 0);
+        for (Entity entity : entities) {
+            entity.getLocation(scratch);
+            points.add(scratch.getX(), scratch.getY(), scratch.getZ());
+        }
+
+        return points;
+    }
 }
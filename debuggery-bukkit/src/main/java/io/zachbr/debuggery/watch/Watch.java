@@ -0,0 +1,127 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.watch;
+
+import io.zachbr.debuggery.reflection.chain.PreparedChain;
+import io.zachbr.debuggery.util.DoubleRingBuffer;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * A chain sampled at a fixed interval on behalf of a sender
+ */
+public final class Watch {
+    private final int id;
+    private final CommandSender owner;
+    private final Target target;
+    private final @Nullable UUID targetId;
+    private final PreparedChain chain;
+    private final int intervalTicks;
+    private final DoubleRingBuffer history;
+    long nextRunTick;
+    @Nullable String lastOutput;
+    long samples;
+
+    Watch(int id, CommandSender owner, Target target, @Nullable UUID targetId, PreparedChain chain, int intervalTicks, int historySize) {
+        this.id = id;
+        this.owner = owner;
+        this.target = target;
+        this.targetId = targetId;
+        this.chain = chain;
+        this.intervalTicks = intervalTicks;
+        this.history = new DoubleRingBuffer(historySize);
+    }
+
+    /**
+     * Looks up the current instance this watch starts its chain from
+     *
+     * @return root instance or null if it is no longer available
+     */
+    @Nullable Object resolveRoot() {
+        switch (target) {
+            case SERVER:
+                return Bukkit.getServer();
+            case WORLD:
+                return Bukkit.getWorld(targetId);
+            case PLAYER:
+                return Bukkit.getPlayer(targetId);
+            default:
+                throw new IllegalArgumentException("Unhandled switch case for watch target: " + target);
+        }
+    }
+
+    /**
+     * Gets whether the sender that started this watch can still see its output
+     *
+     * @return true if the owner is still around
+     */
+    boolean isOwnerAvailable() {
+        return !(owner instanceof Player) || ((Player) owner).isOnline();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public CommandSender getOwner() {
+        return owner;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    PreparedChain getChain() {
+        return chain;
+    }
+
+    public int getIntervalTicks() {
+        return intervalTicks;
+    }
+
+    /**
+     * Gets the numeric values this watch has recently sampled
+     *
+     * @return recent numeric samples
+     */
+    public DoubleRingBuffer getHistory() {
+        return history;
+    }
+
+    /**
+     * Describes this watch for listings
+     *
+     * @return description
+     */
+    public String describe() {
+        return "#" + id + " " + target.name().toLowerCase() + " every " + intervalTicks + " ticks: " + String.join(" ", chain.getInput());
+    }
+
+    /**
+     * What a watch starts its chain from
+     */
+    public enum Target {
+        SERVER,
+        WORLD,
+        PLAYER
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.watch;
+
+import io.zachbr.debuggery.DebuggeryBukkit;
+import io.zachbr.debuggery.reflection.chain.ReflectionResult;
+import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
+import io.zachbr.debuggery.util.DoubleRingBuffer;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every active {@link Watch} from a single task on the main thread
+ * <p>
+ * Each tick only the watches that are due are sampled, and only until the tick's time budget runs out.
+ * Each sample's chain is given what's left of that budget, so a slow chain stops between steps rather
+ * than overrunning the tick. Watches that didn't get a turn, or were cut short, go first on the next tick.
+ * A watch whose single sample takes longer than the configured limit is stopped outright.
+ */
+public final class WatchManager {
+    private final DebuggeryBukkit debuggery;
+    private final int maxWatches;
+    private final int maxWatchesPerSender;
+    private final int minIntervalTicks;
+    private final int historySize;
+    private final long tickBudgetNanos;
+    private final long maxSampleNanos;
+    // rotated as watches run so that no watch is starved by those ahead of it
+    private final Deque<Watch> watches = new ArrayDeque<>();
+    private @Nullable BukkitTask task;
+    private long currentTick;
+    private int nextId = 1;
+
+    public WatchManager(DebuggeryBukkit debuggery) {
+        this.debuggery = debuggery;
+
+        final FileConfiguration config = debuggery.getJavaPlugin().getConfig();
+        this.maxWatches = Math.max(0, config.getInt("watch.max-watches", 16));
+        this.maxWatchesPerSender = Math.max(0, config.getInt("watch.max-watches-per-sender", 4));
+        this.minIntervalTicks = Math.max(1, config.getInt("watch.min-interval-ticks", 5));
+        this.historySize = Math.max(1, config.getInt("watch.history-size", 60));
+        this.tickBudgetNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, config.getLong("watch.tick-budget-micros", 2000)));
+        this.maxSampleNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, config.getLong("watch.max-sample-micros", 10000)));
+    }
+
+    /**
+     * Starts a new watch and samples it right away
+     * <p>
+     * Callers are expected to have checked the limits, see {@link #getMaxWatches()} and friends.
+     *
+     * @param owner         sender to report to
+     * @param target        what the chain starts from
+     * @param targetId      world or player id for targets that need one
+     * @param input         chain input
+     * @param intervalTicks ticks between samples
+     * @return the watch or null if its first sample failed
+     */
+    public @Nullable Watch start(CommandSender owner, Watch.Target target, @Nullable UUID targetId, String[] input, int intervalTicks) {
+        if (intervalTicks < minIntervalTicks) {
+            throw new IllegalArgumentException("Interval " + intervalTicks + " is below minimum of " + minIntervalTicks);
+        }
+
+        final Watch watch = new Watch(nextId++, owner, target, targetId, debuggery.prepareReflectionChain(input), intervalTicks, historySize);
+        if (sample(watch, maxSampleNanos, false) != SampleOutcome.KEPT) {
+            return null;
+        }
+
+        watch.nextRunTick = currentTick + intervalTicks;
+        watches.addLast(watch);
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(debuggery.getJavaPlugin(), this::tick, 1, 1);
+        }
+
+        return watch;
+    }
+
+    /**
+     * Stops a watch
+     *
+     * @param watch watch to stop
+     */
+    public void stop(Watch watch) {
+        watches.remove(watch);
+        if (watches.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Stops every watch
+     */
+    public void stopAll() {
+        watches.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Gets a running watch by id
+     *
+     * @param id watch id
+     * @return the watch or null if there is no such watch
+     */
+    public @Nullable Watch getWatch(int id) {
+        for (Watch watch : watches) {
+            if (watch.getId() == id) {
+                return watch;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets every running watch
+     *
+     * @return running watches
+     */
+    public List<Watch> getWatches() {
+        return new ArrayList<>(watches);
+    }
+
+    /**
+     * Gets the number of watches started by a sender that are still running
+     *
+     * @param owner sender to count for
+     * @return running watch count
+     */
+    public int getWatchCount(CommandSender owner) {
+        int count = 0;
+        for (Watch watch : watches) {
+            if (watch.getOwner().equals(owner)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public int getWatchCount() {
+        return watches.size();
+    }
+
+    public int getMaxWatches() {
+        return maxWatches;
+    }
+
+    public int getMaxWatchesPerSender() {
+        return maxWatchesPerSender;
+    }
+
+    public int getMinIntervalTicks() {
+        return minIntervalTicks;
+    }
+
+    private void tick() {
+        currentTick++;
+
+        final long deadline = System.nanoTime() + tickBudgetNanos;
+        boolean sampled = false;
+        for (int remaining = watches.size(); remaining > 0; remaining--) {
+            final long tickLeft = deadline - System.nanoTime();
+            if (tickLeft <= 0) {
+                break;
+            }
+
+            final Watch watch = watches.pollFirst();
+            if (watch == null) {
+                break;
+            }
+
+            if (watch.nextRunTick > currentTick) {
+                watches.addLast(watch);
+                continue;
+            }
+
+            // the first sample of a tick can't be deferred, else a watch slower than the tick budget never finishes
+            final SampleOutcome outcome = sample(watch, Math.min(tickLeft, maxSampleNanos), sampled);
+            sampled = true;
+            if (outcome == SampleOutcome.KEPT) {
+                watch.nextRunTick = currentTick + watch.getIntervalTicks();
+                watches.addLast(watch);
+            } else if (outcome == SampleOutcome.DEFERRED) {
+                // cut short by the tick budget rather than its own limit, try again first thing next tick
+                watches.addFirst(watch);
+                break;
+            }
+        }
+
+        if (watches.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Runs a watch's chain once and reports any change to its owner
+     *
+     * @param watch      watch to sample
+     * @param timeBudget how long the chain may run, at most the sample limit
+     * @param canDefer   whether running out of time should retry the watch later rather than stop it
+     * @return what should happen to the watch
+     */
+    private SampleOutcome sample(Watch watch, long timeBudget, boolean canDefer) {
+        if (!watch.isOwnerAvailable()) {
+            return SampleOutcome.STOPPED;
+        }
+
+        final CommandSender owner = watch.getOwner();
+        final Object root = watch.resolveRoot();
+        if (root == null) {
+            owner.sendMessage(ChatColor.RED + "Stopped watch #" + watch.getId() + ", its " + watch.getTarget().name().toLowerCase() + " is no longer available");
+            return SampleOutcome.STOPPED;
+        }
+
+        final long start = System.nanoTime();
+        final ReflectionResult result = watch.getChain().run(root, new PlatformSender<>(owner), timeBudget);
+        final long elapsed = System.nanoTime() - start;
+
+        if (result.getType() == ReflectionResult.Type.TIMED_OUT && canDefer && timeBudget < maxSampleNanos) {
+            return SampleOutcome.DEFERRED;
+        }
+
+        watch.samples++;
+        if (result.getType() != ReflectionResult.Type.SUCCESS) {
+            final String reason = result.getReason() != null ? result.getReason() : result.getType().toString();
+            owner.sendMessage(ChatColor.RED + "Stopped watch #" + watch.getId() + ": " + reason);
+            return SampleOutcome.STOPPED;
+        }
+
+        final Object value = result.getEndingInstance();
+        final String output;
+        if (value instanceof Number) {
+            final DoubleRingBuffer history = watch.getHistory();
+            final double number = ((Number) value).doubleValue();
+            final boolean changed = history.size() == 0 || Double.compare(history.getLatest(), number) != 0;
+            history.add(number);
+            output = changed ? String.valueOf(value) + ChatColor.GRAY + " (min " + history.min() + ", avg " + history.mean()
+                    + ", max " + history.max() + " over " + history.size() + ")" : null;
+        } else {
+            final String formatted = debuggery.getTypeHandler().getOutputFor(value, debuggery.newOutputBudget());
+            output = Objects.equals(formatted, watch.lastOutput) && watch.samples > 1 ? null : formatted;
+            watch.lastOutput = formatted;
+        }
+
+        if (output != null) {
+            owner.sendMessage(ChatColor.GRAY + "[watch #" + watch.getId() + "] " + ChatColor.RESET + output);
+        }
+
+        if (elapsed > maxSampleNanos) {
+            owner.sendMessage(ChatColor.RED + "Stopped watch #" + watch.getId() + ", sampling took "
+                    + TimeUnit.NANOSECONDS.toMicros(elapsed) + "us which is over the limit");
+            return SampleOutcome.STOPPED;
+        }
+
+        return SampleOutcome.KEPT;
+    }
+
+    private enum SampleOutcome {
+        KEPT,
+        // ran out of the tick's time, not its own
+        DEFERRED,
+        STOPPED
+    }
+}
@@ -18,26 +18,45 @@
 package io.zachbr.debuggery;
 
 import io.zachbr.debuggery.reflection.MethodMapProvider;
+import io.zachbr.debuggery.reflection.MethodMapStore;
+import io.zachbr.debuggery.reflection.chain.AsyncChainPolicy;
+import io.zachbr.debuggery.reflection.chain.ChainAggregate;
+import io.zachbr.debuggery.reflection.chain.PreparedChain;
 import io.zachbr.debuggery.reflection.chain.ReflectionChainFactory;
 import io.zachbr.debuggery.reflection.chain.ReflectionResult;
 import io.zachbr.debuggery.reflection.types.TypeHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
 import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 
 public abstract class DebuggeryBase {
     private static final boolean DEBUG_MODE = Boolean.getBoolean("debuggery.debug");
+    static final int DEFAULT_OUTPUT_MAX_CHARS = 16384;
+    static final int DEFAULT_OUTPUT_MAX_ELEMENTS = 1000;
     private final MethodMapProvider methodMapProvider;
     private final ReflectionChainFactory chainFactory;
     private final TypeHandler typeHandler;
+    private final DebuggeryMetrics metrics;
     private final Logger logger;
+    private @Nullable ObjectName metricsName;
+    private @Nullable ForkJoinPool batchPool;
 
     DebuggeryBase(Logger logger) {
         this.logger = logger;
         this.methodMapProvider = new MethodMapProvider();
         this.typeHandler = new TypeHandler(getLogger());
         this.chainFactory = new ReflectionChainFactory(typeHandler, methodMapProvider, getLogger());
+        this.metrics = new DebuggeryMetrics(methodMapProvider, typeHandler, chainFactory);
     }
 
     public final Logger getLogger() {
@@ -74,6 +93,10 @@ public abstract class DebuggeryBase {
     }
 
     public final void printSystemInfo() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+
         for (String line : getSystemInfo()) {
             logger.debug(line);
         }
@@ -87,11 +110,236 @@ public abstract class DebuggeryBase {
         return this.typeHandler;
     }
 
+    public final DebuggeryMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Publishes our metrics to the platform MBean server
+     * <p>
+     * Anything left registered under the same name, such as by an earlier instance of the plugin, is replaced.
+     */
+    public final synchronized void registerMetrics() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name = new ObjectName("io.zachbr.debuggery:type=Metrics,platform=" + ObjectName.quote(getPlatformName()));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+
+            server.registerMBean(metrics, name);
+            this.metricsName = name;
+        } catch (JMException ex) {
+            logger.warn("Unable to register metrics MBean: " + ex);
+        }
+    }
+
+    /**
+     * Removes our metrics from the platform MBean server, if they were published
+     */
+    public final synchronized void unregisterMetrics() {
+        if (metricsName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+        } catch (JMException ex) {
+            logger.warn("Unable to unregister metrics MBean: " + ex);
+        }
+
+        this.metricsName = null;
+    }
+
+    /**
+     * Builds method maps for the given classes, and the types they return, on a background pool
+     * <p>
+     * The pool is shut down once the warm-up finishes.
+     *
+     * @param classes classes to warm up
+     * @return future completed with the number of classes warmed up
+     */
+    public final CompletableFuture<Integer> warmUpMethodMaps(Collection<Class<?>> classes) {
+        final long start = System.nanoTime();
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Debuggery Warm-up #" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+
+        return methodMapProvider.warmUp(classes, pool).whenComplete((count, ex) -> {
+            pool.shutdown();
+            if (ex != null) {
+                logger.warn("Unable to warm up method maps: " + ex);
+            } else {
+                logger.debug("Warmed up {} method maps in {}ms", count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+    }
+
+    /**
+     * Reads method maps from a store saved by {@link #saveMethodMapStore(Path, Class)} instead of reflecting on them
+     * <p>
+     * Stores saved by a different platform, plugin, or Java version, or against a different server jar, are ignored.
+     *
+     * @param file          store file
+     * @param platformClass class from the server implementation, identifies its jar
+     */
+    public final void loadMethodMapStore(Path file, Class<?> platformClass) {
+        try {
+            MethodMapStore store = MethodMapStore.open(file, getMethodMapStoreFingerprint(platformClass));
+            if (store == null) {
+                logger.debug("No usable method map store at {}", file);
+                return;
+            }
+
+            methodMapProvider.setStore(store);
+            logger.debug("Loaded {} method maps from {}", store.size(), file);
+        } catch (IOException ex) {
+            logger.warn("Unable to read method map store " + file + ": " + ex);
+        }
+    }
+
+    /**
+     * Saves every method map built so far for {@link #loadMethodMapStore(Path, Class)}
+     *
+     * @param file          store file
+     * @param platformClass class from the server implementation, identifies its jar
+     */
+    public final void saveMethodMapStore(Path file, Class<?> platformClass) {
+        try {
+            int saved = methodMapProvider.save(file, getMethodMapStoreFingerprint(platformClass));
+            logger.debug("Saved {} method maps to {}", saved, file);
+        } catch (IOException ex) {
+            logger.warn("Unable to save method map store " + file + ": " + ex);
+        }
+    }
+
+    private String getMethodMapStoreFingerprint(Class<?> platformClass) {
+        return MethodMapStore.fingerprint(getPlatformName(), getPlatformVersion(), getPluginVersion(),
+                System.getProperty("java.runtime.version"), MethodMapStore.describeCodeSource(platformClass),
+                MethodMapStore.describeCodeSource(this.getClass()));
+    }
+
+    /**
+     * Creates a fresh budget for output sent back to a user
+     *
+     * @return new output budget
+     */
+    public OutputBudget newOutputBudget() {
+        return new OutputBudget(DEFAULT_OUTPUT_MAX_CHARS, DEFAULT_OUTPUT_MAX_ELEMENTS);
+    }
+
+    /**
+     * Sets how long a single reflection chain may run before it is stopped between steps
+     *
+     * @param nanos time budget in nanoseconds, 0 for no limit
+     */
+    public void setChainTimeBudget(long nanos) {
+        chainFactory.setTimeBudget(nanos);
+    }
+
+    /**
+     * Sets how long a batch of reflection chains run on an executor may take
+     *
+     * @param sliceNanos longest a batch may run in a single task, 0 for no limit
+     * @param totalNanos longest a batch may run across all its tasks, 0 for no limit
+     */
+    public void setBatchTimeBudget(long sliceNanos, long totalNanos) {
+        chainFactory.setBatchTimeBudget(sliceNanos, totalNanos);
+    }
+
+    /**
+     * Forgets every cached chain plan, releasing the classes and methods they reference
+     */
+    public void clearChainPlans() {
+        chainFactory.clearPlanCache();
+    }
+
     // todo - better solutions elsewhere?
     public ReflectionResult runReflectionChain(String[] inputArgs, Object initialInstance, PlatformSender<?> sender) {
+        return runReflectionChain(inputArgs, initialInstance, sender, false);
+    }
+
+    public ReflectionResult runReflectionChain(String[] inputArgs, Object initialInstance, PlatformSender<?> sender, boolean recordTimings) {
+        Objects.requireNonNull(inputArgs);
+        Objects.requireNonNull(initialInstance);
+
+        return chainFactory.runChain(inputArgs, initialInstance, sender, recordTimings);
+    }
+
+    public PreparedChain prepareReflectionChain(String[] inputArgs) {
+        Objects.requireNonNull(inputArgs);
+
+        return chainFactory.prepare(inputArgs);
+    }
+
+    public ChainAggregate runReflectionChainBatch(String[] inputArgs, Iterable<?> roots, PlatformSender<?> sender) {
+        Objects.requireNonNull(inputArgs);
+        Objects.requireNonNull(roots);
+
+        return chainFactory.runBatch(inputArgs, roots, sender);
+    }
+
+    public CompletableFuture<ChainAggregate> runReflectionChainBatchSliced(String[] inputArgs, List<?> roots,
+                                                                           PlatformSender<?> sender, Executor executor) {
+        Objects.requireNonNull(inputArgs);
+        Objects.requireNonNull(roots);
+        Objects.requireNonNull(executor);
+
+        return chainFactory.runBatchSliced(inputArgs, roots, sender, executor);
+    }
+
+    public CompletableFuture<ChainAggregate> runReflectionChainBatchAsync(String[] inputArgs, List<?> roots,
+                                                                          PlatformSender<?> sender, AsyncChainPolicy policy) {
+        Objects.requireNonNull(inputArgs);
+        Objects.requireNonNull(roots);
+        Objects.requireNonNull(policy);
+
+        return chainFactory.runBatchAsync(inputArgs, roots, sender, policy, getBatchPool());
+    }
+
+    /**
+     * Gets the pool thread safe batches are split across, creating it on first use
+     *
+     * @return batch pool
+     */
+    private synchronized ForkJoinPool getBatchPool() {
+        if (batchPool == null) {
+            batchPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("Debuggery Batch Worker #" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+
+        return batchPool;
+    }
+
+    /**
+     * Stops the pool used for parallel batches, a new one is created if another batch is run
+     */
+    public synchronized void shutdownBatchPool() {
+        if (batchPool != null) {
+            batchPool.shutdownNow();
+            batchPool = null;
+        }
+    }
+
+    public CompletableFuture<ReflectionResult> runReflectionChainAsync(String[] inputArgs, Object initialInstance,
+                                                                       PlatformSender<?> sender, AsyncChainPolicy policy) {
+        return runReflectionChainAsync(inputArgs, initialInstance, sender, policy, false);
+    }
+
+    public CompletableFuture<ReflectionResult> runReflectionChainAsync(String[] inputArgs, Object initialInstance,
+                                                                       PlatformSender<?> sender, AsyncChainPolicy policy,
+                                                                       boolean recordTimings) {
         Objects.requireNonNull(inputArgs);
         Objects.requireNonNull(initialInstance);
+        Objects.requireNonNull(policy);
 
-        return chainFactory.runChain(inputArgs, initialInstance, sender);
+        return chainFactory.runChainAsync(inputArgs, initialInstance, sender, policy, recordTimings);
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery;
+
+import io.zachbr.debuggery.reflection.MethodMapProvider;
+import io.zachbr.debuggery.reflection.chain.ReflectionChainFactory;
+import io.zachbr.debuggery.reflection.chain.ReflectionResult;
+import io.zachbr.debuggery.reflection.types.TypeHandler;
+import io.zachbr.debuggery.util.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Figures on what Debuggery itself is costing
+ * <p>
+ * Each component keeps its own counters, this only gathers them up in one place for display and JMX.
+ */
+public final class DebuggeryMetrics implements DebuggeryMetricsMXBean {
+    private final MethodMapProvider methodMapProvider;
+    private final TypeHandler typeHandler;
+    private final ReflectionChainFactory chainFactory;
+    private final LongAdder completions = new LongAdder();
+
+    DebuggeryMetrics(@NotNull MethodMapProvider methodMapProvider, @NotNull TypeHandler typeHandler, @NotNull ReflectionChainFactory chainFactory) {
+        this.methodMapProvider = Objects.requireNonNull(methodMapProvider);
+        this.typeHandler = Objects.requireNonNull(typeHandler);
+        this.chainFactory = Objects.requireNonNull(chainFactory);
+    }
+
+    /**
+     * Counts a tab completion served to a user
+     */
+    public void recordCompletion() {
+        completions.increment();
+    }
+
+    /**
+     * Gets these metrics as an array of lines, in the same form as {@link DebuggeryBase#getSystemInfo()}
+     *
+     * @return metrics lines
+     */
+    public @NotNull String[] getSummary() {
+        List<String> out = new ArrayList<>();
+
+        StringBuilder results = new StringBuilder();
+        for (ReflectionResult.Type type : ReflectionResult.Type.values()) {
+            final long count = chainFactory.getResultCount(type);
+            if (count != 0) {
+                results.append(results.length() == 0 ? " (" : ", ").append(type).append(": ").append(count);
+            }
+        }
+
+        out.add("Chains Run: " + getChainsRun() + (results.length() == 0 ? "" : results.append(')').toString()));
+        out.add("Chain Times: " + describe(chainFactory.getChainLatency()));
+        out.add("Format Times: " + describe(typeHandler.getFormatLatency()));
+        out.add("Completions Served: " + getCompletionsServed());
+        out.add("Method Maps: " + getMethodMapCount() + " held, " + getMethodMapHits() + " hits, " + getMethodMapMisses() + " misses");
+        out.add("Type Handlers: " + getHandlerLookupHits() + " hits, " + getHandlerResolutions() + " resolved");
+
+        return out.toArray(new String[0]);
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "none yet";
+        }
+
+        return "mean " + Math.round(histogram.getMean() / 1000) + "us, p50 " + toMicros(histogram.getValueAtPercentile(50))
+                + "us, p99 " + toMicros(histogram.getValueAtPercentile(99)) + "us, max " + toMicros(histogram.getMax()) + "us";
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public long getChainsRun() {
+        return chainFactory.getChainCount();
+    }
+
+    @Override
+    public Map<String, Long> getChainResults() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (ReflectionResult.Type type : ReflectionResult.Type.values()) {
+            out.put(type.name(), chainFactory.getResultCount(type));
+        }
+
+        return out;
+    }
+
+    @Override
+    public double getChainMeanMicros() {
+        return chainFactory.getChainLatency().getMean() / 1000;
+    }
+
+    @Override
+    public long getChainP50Micros() {
+        return toMicros(chainFactory.getChainLatency().getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getChainP99Micros() {
+        return toMicros(chainFactory.getChainLatency().getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getChainMaxMicros() {
+        return toMicros(chainFactory.getChainLatency().getMax());
+    }
+
+    @Override
+    public long getFormatsRun() {
+        return typeHandler.getFormatLatency().getCount();
+    }
+
+    @Override
+    public double getFormatMeanMicros() {
+        return typeHandler.getFormatLatency().getMean() / 1000;
+    }
+
+    @Override
+    public long getFormatP50Micros() {
+        return toMicros(typeHandler.getFormatLatency().getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getFormatP99Micros() {
+        return toMicros(typeHandler.getFormatLatency().getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getFormatMaxMicros() {
+        return toMicros(typeHandler.getFormatLatency().getMax());
+    }
+
+    @Override
+    public long getCompletionsServed() {
+        return completions.sum();
+    }
+
+    @Override
+    public long getMethodMapHits() {
+        // read separately, so clamp in case a miss was counted after its lookup was read
+        return Math.max(0, methodMapProvider.getLookupCount() - methodMapProvider.getMissCount());
+    }
+
+    @Override
+    public long getMethodMapMisses() {
+        return methodMapProvider.getMissCount();
+    }
+
+    @Override
+    public int getMethodMapCount() {
+        return methodMapProvider.getCachedMapCount();
+    }
+
+    @Override
+    public long getHandlerLookupHits() {
+        return Math.max(0, typeHandler.getHandlerLookupCount() - typeHandler.getHandlerResolutionCount());
+    }
+
+    @Override
+    public long getHandlerResolutions() {
+        return typeHandler.getHandlerResolutionCount();
+    }
+
+    @Override
+    public void resetLatencies() {
+        chainFactory.getChainLatency().reset();
+        typeHandler.getFormatLatency().reset();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery;
+
+import java.util.Map;
+
+/**
+ * Management interface for {@link DebuggeryMetrics}, see {@link DebuggeryBase#registerMetrics()}
+ * <p>
+ * Times are reported in microseconds.
+ */
+public interface DebuggeryMetricsMXBean {
+
+    long getChainsRun();
+
+    Map<String, Long> getChainResults();
+
+    double getChainMeanMicros();
+
+    long getChainP50Micros();
+
+    long getChainP99Micros();
+
+    long getChainMaxMicros();
+
+    long getFormatsRun();
+
+    double getFormatMeanMicros();
+
+    long getFormatP50Micros();
+
+    long getFormatP99Micros();
+
+    long getFormatMaxMicros();
+
+    long getCompletionsServed();
+
+    long getMethodMapHits();
+
+    long getMethodMapMisses();
+
+    int getMethodMapCount();
+
+    long getHandlerLookupHits();
+
+    long getHandlerResolutions();
+
+    /**
+     * Clears the chain and formatting time histograms, counters are left alone
+     */
+    void resetLatencies();
+}
@@ -17,6 +17,8 @@
 
 package io.zachbr.debuggery;
 
+import java.util.function.Supplier;
+
 public interface Logger {
 
     void info(String str);
@@ -26,4 +28,95 @@ public interface Logger {
     void err(String str);
 
     void debug(String str);
+
+    /**
+     * Gets whether debug output is currently being emitted
+     * <p>
+     * Callers should check this before building any expensive debug message.
+     *
+     * @return true if debug messages will be logged
+     */
+    boolean isDebugEnabled();
+
+    /**
+     * Logs a lazily built debug message, the supplier is only called when debug is enabled
+     *
+     * @param message message supplier
+     */
+    default void debug(Supplier<String> message) {
+        if (isDebugEnabled()) {
+            debug(message.get());
+        }
+    }
+
+    /**
+     * Logs a debug message, replacing the first {@code {}} in the pattern with the given argument
+     * <p>
+     * Nothing is formatted unless debug is enabled.
+     *
+     * @param pattern message pattern
+     * @param arg     argument to substitute
+     */
+    default void debug(String pattern, Object arg) {
+        if (isDebugEnabled()) {
+            debug(format(pattern, arg));
+        }
+    }
+
+    /**
+     * Logs a debug message, replacing each {@code {}} in the pattern with the next argument
+     * <p>
+     * Nothing is formatted unless debug is enabled.
+     *
+     * @param pattern message pattern
+     * @param arg1    first argument to substitute
+     * @param arg2    second argument to substitute
+     */
+    default void debug(String pattern, Object arg1, Object arg2) {
+        if (isDebugEnabled()) {
+            debug(format(pattern, arg1, arg2));
+        }
+    }
+
+    /**
+     * Logs a debug message, replacing each {@code {}} in the pattern with the next argument
+     * <p>
+     * Nothing is formatted unless debug is enabled.
+     *
+     * @param pattern message pattern
+     * @param arg1    first argument to substitute
+     * @param arg2    second argument to substitute
+     * @param arg3    third argument to substitute
+     */
+    default void debug(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isDebugEnabled()) {
+            debug(format(pattern, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * Substitutes each {@code {}} in the pattern with the next argument
+     * <p>
+     * Placeholders without a matching argument are left as-is.
+     *
+     * @param pattern message pattern
+     * @param args    arguments to substitute
+     * @return formatted message
+     */
+    static String format(String pattern, Object... args) {
+        final StringBuilder out = new StringBuilder(pattern.length() + 16 * args.length);
+
+        int from = 0;
+        for (Object arg : args) {
+            int at = pattern.indexOf("{}", from);
+            if (at == -1) {
+                break;
+            }
+
+            out.append(pattern, from, at).append(arg);
+            from = at + 2;
+        }
+
+        return out.append(pattern, from, pattern.length()).toString();
+    }
 }
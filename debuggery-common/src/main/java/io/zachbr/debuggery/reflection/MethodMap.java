@@ -20,27 +20,201 @@ package io.zachbr.debuggery.reflection;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
 
 /**
  * Class to allow querying a java class for methods based on their names
+ * <p>
+ * A map can be built on top of parent maps, usually those of its superclass or superinterfaces. It then only
+ * stores the methods that its parents don't already resolve the same way, and delegates every other lookup to them.
+ * Parents are searched in order, and inherited ids that are not available on the mapped class are masked out.
+ * <p>
+ * Maps read from a {@link MethodMapStore} only resolve their methods when they are first looked up.
  */
 public class MethodMap {
     public static final MethodMap EMPTY = new MethodMap();
-    private final Map<String, Method> backingMap = new HashMap<>();
+    private static final MethodHandle NO_HANDLE = MethodHandles.identity(Object.class); // marks failed unreflects
+    private final Map<String, Method> backingMap; // only entries not inherited from parents
+    private final Map<String, String[]> storedEntries; // unresolved descriptors when read from a store
+    private final Map<String, MethodHandle> handleCache = new ConcurrentHashMap<>();
+    // inherited methods that have been looked up through this map, so repeat lookups skip the parents.
+    // only public lookups fill it, building or comparing maps never fills a parent's
+    private final Map<String, Method> inheritedCache = new ConcurrentHashMap<>();
     private final Class<?> mappedClass;
+    private final List<MethodMap> parents;
+    private final Set<String> hiddenIds;
+    private final int size;
+    // sorted case-insensitively for prefix searches, built on first use
+    private volatile String[] sortedIds;
+    private volatile int hash; // 0 until first computed
 
     private MethodMap() {
         mappedClass = this.getClass();
+        backingMap = Collections.emptyMap();
+        storedEntries = Collections.emptyMap();
+        parents = Collections.emptyList();
+        hiddenIds = Collections.emptySet();
+        size = 0;
     }
 
     MethodMap(@NotNull Class<?> clazz) {
+        this(clazz, Collections.emptyList());
+    }
+
+    /**
+     * Creates a method map that shares inherited entries with the given parents
+     *
+     * @param clazz   class to map
+     * @param parents maps to delegate inherited lookups to, in lookup order
+     */
+    MethodMap(@NotNull Class<?> clazz, @NotNull List<MethodMap> parents) {
         this.mappedClass = Objects.requireNonNull(clazz);
+        this.parents = List.copyOf(parents);
+        this.backingMap = new HashMap<>();
+        this.storedEntries = Collections.emptyMap();
+
+        final Map<String, Method> allMethods = new HashMap<>();
         for (Method method : clazz.getMethods()) {
             final String identifier = ReflectionUtil.getMethodId(method);
+            allMethods.put(identifier, method);
+        }
+
+        for (Map.Entry<String, Method> entry : allMethods.entrySet()) {
+            if (!entry.getValue().equals(getFromParents(entry.getKey()))) {
+                backingMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // static interface methods aren't inherited, don't let parents resolve them here
+        Set<String> hidden = null;
+        for (MethodMap parent : this.parents) {
+            for (String identifier : parent.getSortedIds()) {
+                if (!allMethods.containsKey(identifier)) {
+                    if (hidden == null) {
+                        hidden = new HashSet<>();
+                    }
+
+                    hidden.add(identifier);
+                }
+            }
+        }
+
+        this.hiddenIds = hidden != null ? hidden : Collections.emptySet();
+        this.size = allMethods.size();
+    }
+
+    /**
+     * Creates a method map from entries saved by a {@link MethodMapStore}
+     *
+     * @param clazz         class to map
+     * @param parents       maps to delegate inherited lookups to, in lookup order
+     * @param storedEntries descriptors of the entries this map stores itself
+     * @param hiddenIds     inherited ids that are not available on the class
+     * @param size          total number of ids including inherited ones
+     */
+    MethodMap(@NotNull Class<?> clazz, @NotNull List<MethodMap> parents, @NotNull Map<String, String[]> storedEntries,
+              @NotNull Set<String> hiddenIds, int size) {
+        this.mappedClass = Objects.requireNonNull(clazz);
+        this.parents = List.copyOf(parents);
+        this.backingMap = new ConcurrentHashMap<>();
+        this.storedEntries = storedEntries;
+        this.hiddenIds = hiddenIds;
+        this.size = size;
+    }
+
+    private @Nullable Method getOwnMethod(String identifier) {
+        Method method = backingMap.get(identifier);
+        if (method != null || storedEntries.isEmpty()) {
+            return method;
+        }
+
+        final String[] descriptor = storedEntries.get(identifier);
+        if (descriptor == null) {
+            return null;
+        }
+
+        try {
+            method = MethodMapStore.resolve(mappedClass, descriptor);
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            // the store is out of date, look the method up the slow way
+            for (Method candidate : mappedClass.getMethods()) {
+                if (identifier.equals(ReflectionUtil.getMethodId(candidate))) {
+                    method = candidate;
+                    break;
+                }
+            }
+        }
+
+        if (method != null) {
             backingMap.put(identifier, method);
         }
+
+        return method;
+    }
+
+    private boolean ownsId(String identifier) {
+        return backingMap.containsKey(identifier) || storedEntries.containsKey(identifier);
+    }
+
+    private Map<String, Method> getOwnEntries() {
+        if (storedEntries.isEmpty()) {
+            return new HashMap<>(backingMap);
+        }
+
+        final Map<String, Method> entries = new HashMap<>();
+        for (String identifier : storedEntries.keySet()) {
+            final Method method = getOwnMethod(identifier);
+            if (method != null) {
+                entries.put(identifier, method);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Gets the record {@link MethodMapStore} saves for this map
+     *
+     * @param strings    assigns each string its index in the store's string table
+     * @param codeSource where the mapped class was loaded from, see {@link MethodMapStore#describeCodeSource(Class)}
+     * @return class name, code source, size, hidden ids, then each stored entry as id, descriptor length, and descriptor
+     */
+    int[] writeRecord(ToIntFunction<String> strings, String codeSource) {
+        final Map<String, String[]> entries = new HashMap<>(storedEntries);
+        for (Map.Entry<String, Method> entry : backingMap.entrySet()) {
+            entries.put(entry.getKey(), MethodMapStore.describe(entry.getValue()));
+        }
+
+        int length = 5 + hiddenIds.size();
+        for (String[] descriptor : entries.values()) {
+            length += 2 + descriptor.length;
+        }
+
+        final int[] record = new int[length];
+        int i = 0;
+        record[i++] = strings.applyAsInt(mappedClass.getName());
+        record[i++] = strings.applyAsInt(codeSource);
+        record[i++] = size;
+        record[i++] = hiddenIds.size();
+        for (String hidden : hiddenIds) {
+            record[i++] = strings.applyAsInt(hidden);
+        }
+
+        record[i++] = entries.size();
+        for (Map.Entry<String, String[]> entry : entries.entrySet()) {
+            record[i++] = strings.applyAsInt(entry.getKey());
+            record[i++] = entry.getValue().length;
+            for (String part : entry.getValue()) {
+                record[i++] = strings.applyAsInt(part);
+            }
+        }
+
+        return record;
     }
 
     /**
@@ -50,7 +224,137 @@ public class MethodMap {
      * @return the associated method or null if it does not exist
      */
     public @Nullable Method getById(String identifier) {
-        return backingMap.get(identifier);
+        final Method method = getOwnMethod(identifier);
+        if (method != null || parents.isEmpty() || hiddenIds.contains(identifier) || storedEntries.containsKey(identifier)) {
+            return method;
+        }
+
+        Method inherited = inheritedCache.get(identifier);
+        if (inherited == null) {
+            // misses aren't cached, they'd let mistyped input grow the cache without bound
+            inherited = getFromParents(identifier);
+            if (inherited != null) {
+                inheritedCache.put(identifier, inherited);
+            }
+        }
+
+        return inherited;
+    }
+
+    private @Nullable Method getFromParents(String identifier) {
+        for (MethodMap parent : parents) {
+            final Method method = parent.lookup(identifier);
+            if (method != null) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the number of inherited methods remembered by this map's lookups
+     *
+     * @return cached inherited method count
+     */
+    int getInheritedCacheSize() {
+        return inheritedCache.size();
+    }
+
+    /**
+     * Gets a method by its identifier without caching anything along the way
+     *
+     * @param identifier String identifier from {@link ReflectionUtil#getMethodId(Method)}
+     * @return the associated method or null if it does not exist
+     */
+    private @Nullable Method lookup(String identifier) {
+        final Method cached = inheritedCache.get(identifier);
+        if (cached != null) {
+            return cached;
+        }
+
+        final MethodMap owner = getOwner(identifier);
+        return owner != null ? owner.getOwnMethod(identifier) : null;
+    }
+
+    /**
+     * Gets the map in this hierarchy that stores the entry for an id
+     *
+     * @param identifier String identifier from {@link ReflectionUtil#getMethodId(Method)}
+     * @return owning map or null if no map resolves the id
+     */
+    private @Nullable MethodMap getOwner(String identifier) {
+        if (ownsId(identifier)) {
+            return this;
+        }
+
+        if (hiddenIds.contains(identifier)) {
+            return null;
+        }
+
+        for (MethodMap parent : parents) {
+            final MethodMap owner = parent.getOwner(identifier);
+            if (owner != null) {
+                return owner;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets every entry resolvable through this map, including inherited ones
+     * <p>
+     * This walks and copies the whole hierarchy, callers should use {@link #getSortedIds()} which is only built once.
+     *
+     * @return new map of identifiers to methods
+     */
+    private Map<String, Method> getFlattened() {
+        final Map<String, Method> flattened = getOwnEntries();
+        for (MethodMap parent : parents) {
+            for (Map.Entry<String, Method> entry : parent.getFlattened().entrySet()) {
+                if (!hiddenIds.contains(entry.getKey())) {
+                    flattened.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return flattened;
+    }
+
+    /**
+     * Gets an invocation handle for a method by its identifier
+     * <p>
+     * Handles are unreflected lazily on first request and cached from then on. Every handle is adapted to the
+     * shape {@code (Object, Object[])Object} so that any mapped method can be invoked the same way, static
+     * methods simply ignore the receiver.
+     * <p>
+     * Inherited methods are cached by the parent map that owns them, so every map in a hierarchy shares one handle.
+     *
+     * @param identifier String identifier from {@link ReflectionUtil#getMethodId(Method)}
+     * @return the associated handle or null if the method does not exist or cannot be unreflected
+     */
+    public @Nullable MethodHandle getHandleById(String identifier) {
+        final MethodMap owner = getOwner(identifier);
+        if (owner == null) {
+            return null;
+        }
+
+        return owner.getOwnHandle(identifier);
+    }
+
+    private @Nullable MethodHandle getOwnHandle(String identifier) {
+        final Method method = getOwnMethod(identifier);
+        if (method == null) {
+            return null;
+        }
+
+        MethodHandle handle = handleCache.computeIfAbsent(identifier, id -> {
+            MethodHandle unreflected = ReflectionUtil.getSpreadingHandle(method);
+            return unreflected != null ? unreflected : NO_HANDLE;
+        });
+
+        return handle != NO_HANDLE ? handle : null;
     }
 
     /**
@@ -60,7 +364,7 @@ public class MethodMap {
      * @return True if this method map contains a method for the identifier
      */
     public boolean containsId(String identifier) {
-        return backingMap.containsKey(identifier);
+        return getById(identifier) != null;
     }
 
     /**
@@ -69,7 +373,13 @@ public class MethodMap {
      * @return all methods
      */
     public @NotNull Set<Method> getAllMethods() {
-        return new HashSet<>(backingMap.values());
+        final String[] ids = getSortedIds();
+        final Set<Method> methods = new HashSet<>(ids.length * 2);
+        for (String identifier : ids) {
+            methods.add(lookup(identifier));
+        }
+
+        return methods;
     }
 
     /**
@@ -78,7 +388,63 @@ public class MethodMap {
      * @return all identifiers
      */
     public @NotNull Set<String> getAllIds() {
-        return new HashSet<>(backingMap.keySet());
+        return new HashSet<>(Arrays.asList(getSortedIds()));
+    }
+
+    /**
+     * Gets all identifiers that start with the given prefix, ignoring case
+     * <p>
+     * The result is a read-only view sorted case-insensitively, looked up by binary search without
+     * copying any identifiers.
+     *
+     * @param prefix prefix to search for
+     * @return matching identifiers
+     */
+    public @NotNull List<String> getIdsStartingWith(@NotNull String prefix) {
+        Objects.requireNonNull(prefix);
+
+        final String[] ids = getSortedIds();
+
+        // everything sharing a prefix is contiguous in case-insensitive order
+        final int from = lowerBound(ids, prefix);
+        int low = from;
+        int high = ids.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (ids[mid].regionMatches(true, 0, prefix, 0, prefix.length())) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(ids).subList(from, low));
+    }
+
+    private String[] getSortedIds() {
+        String[] ids = sortedIds;
+        if (ids == null) {
+            ids = getFlattened().keySet().toArray(new String[0]);
+            Arrays.sort(ids, String.CASE_INSENSITIVE_ORDER);
+            sortedIds = ids;
+        }
+
+        return ids;
+    }
+
+    private static int lowerBound(String[] ids, String key) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(ids[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
     }
 
     /**
@@ -95,19 +461,46 @@ public class MethodMap {
         if (this == o) return true;
         if (o == null || this.getClass() != o.getClass()) return false;
         MethodMap other = (MethodMap) o;
-        return backingMap.equals(other.backingMap);
+        if (size != other.size || hashCode() != other.hashCode()) {
+            return false;
+        }
+
+        // matching lengths and methods for every id here means the other map has the same ids
+        final String[] ids = getSortedIds();
+        if (ids.length != other.getSortedIds().length) {
+            return false;
+        }
+
+        for (String identifier : ids) {
+            if (!Objects.equals(lookup(identifier), other.lookup(identifier))) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return 67 * backingMap.hashCode();
+        int hash = this.hash;
+        if (hash == 0) {
+            // same value as the hash of a map from every id to its method
+            for (String identifier : getSortedIds()) {
+                hash += identifier.hashCode() ^ Objects.hashCode(lookup(identifier));
+            }
+
+            hash *= 67;
+            this.hash = hash;
+        }
+
+        return hash;
     }
 
     @Override
     public String toString() {
         return String.format("MethodMap{class: %s, elements: %d}",
                 this.mappedClass,
-                this.backingMap.size()
+                this.size
         );
     }
 }
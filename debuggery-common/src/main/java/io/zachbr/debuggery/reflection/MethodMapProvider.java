@@ -18,11 +18,65 @@
 package io.zachbr.debuggery.reflection;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Thread-safe cache of {@link MethodMap}s
+ * <p>
+ * Maps are attached to their class through a {@link ClassValue}, so lookups are lock-free and the cache
+ * never keeps a class (or its classloader) alive on its own. Each map is computed exactly once, even when
+ * several threads request the same class at the same time.
+ */
 public class MethodMapProvider {
-    private final Map<Class<?>, MethodMap> cachedMethodMaps = new HashMap<>();
+    private final ClassValue<CacheEntry> cachedMethodMaps = new ClassValue<>() {
+        @Override
+        protected CacheEntry computeValue(Class<?> type) {
+            return new CacheEntry(type);
+        }
+    };
+    // everything below is guarded by mappedClasses
+    private final Map<Class<?>, Boolean> mappedClasses = new WeakHashMap<>();
+    private final Map<Class<?>, Boolean> parentClasses = new WeakHashMap<>(); // built only as parents of other maps
+    private final Deque<WeakReference<Class<?>>> insertionOrder = new ArrayDeque<>();
+    private final int maximumSize;
+    private volatile @Nullable MethodMapStore store;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new unbounded provider
+     */
+    public MethodMapProvider() {
+        this(0);
+    }
+
+    /**
+     * Creates a new provider that holds at most the given number of method maps
+     * <p>
+     * Once the bound is reached the oldest maps are evicted first. Eviction order is based on creation rather than
+     * access so that lookups never need to take a lock.
+     * <p>
+     * Maps that were only built as parents of other maps don't count towards the bound. The maps built on them hold
+     * them strongly, so evicting them would free nothing. They're kept until {@link #clearCache()} and are limited
+     * by the number of distinct supertypes of the mapped classes rather than by this bound.
+     *
+     * @param maximumSize maximum number of maps to hold, 0 for no limit
+     */
+    public MethodMapProvider(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size cannot be negative!");
+        }
+
+        this.maximumSize = maximumSize;
+    }
 
     /**
      * Gets a method map for the specified class
@@ -35,13 +89,111 @@ public class MethodMapProvider {
     public @NotNull MethodMap getMethodMapFor(@NotNull Class<?> classIn) {
         Objects.requireNonNull(classIn);
 
-        var methodMap = cachedMethodMaps.get(classIn);
-        if (methodMap == null) {
-            methodMap = new MethodMap(classIn);
-            cachedMethodMaps.put(classIn, methodMap);
+        lookups.increment();
+        final CacheEntry entry = cachedMethodMaps.get(classIn);
+        final MethodMap map = entry.get();
+        if (!entry.recorded) {
+            entry.record();
         }
 
-        return methodMap;
+        return map;
+    }
+
+    /**
+     * Sets the store new maps are read from before falling back to reflection
+     * <p>
+     * Maps that were already built are unaffected.
+     *
+     * @param store store to read from or null to always use reflection
+     */
+    public void setStore(@Nullable MethodMapStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Saves every map built so far, including those only built as parents of other maps
+     *
+     * @param file        file to save to
+     * @param fingerprint fingerprint of the current environment, see {@link MethodMapStore#fingerprint(String...)}
+     * @return number of maps saved
+     * @throws IOException if the file can't be written
+     */
+    public int save(@NotNull Path file, @NotNull String fingerprint) throws IOException {
+        final Set<Class<?>> classes;
+        synchronized (mappedClasses) {
+            classes = new HashSet<>(mappedClasses.keySet());
+            classes.addAll(parentClasses.keySet());
+        }
+
+        final List<MethodMap> maps = new ArrayList<>(classes.size());
+        for (Class<?> clazz : classes) {
+            maps.add(cachedMethodMaps.get(clazz).get());
+        }
+
+        MethodMapStore.save(file, fingerprint, maps);
+        return maps.size();
+    }
+
+    /**
+     * Gets the maps a class's map should share inherited methods with
+     * <p>
+     * Parent maps are built as needed but are not recorded as mapped until they're requested directly.
+     *
+     * @param clazz class to get parents for
+     * @return parent maps in lookup order
+     */
+    private List<MethodMap> getParentMapsFor(Class<?> clazz) {
+        if (clazz.isInterface()) {
+            final Class<?>[] interfaces = clazz.getInterfaces();
+            final List<MethodMap> parents = new ArrayList<>(interfaces.length);
+            for (Class<?> parent : interfaces) {
+                parents.add(cachedMethodMaps.get(parent).get());
+            }
+
+            return parents;
+        }
+
+        final Class<?> superclass = clazz.getSuperclass();
+        return superclass != null ? Collections.singletonList(cachedMethodMaps.get(superclass).get()) : Collections.emptyList();
+    }
+
+    /**
+     * Builds method maps ahead of time for the given classes and the types their methods return
+     * <p>
+     * Every class is built as its own task on the given executor. Maps are published exactly as if they had been
+     * requested through {@link #getMethodMapFor(Class)}, so callers racing a warm-up simply share its result.
+     *
+     * @param roots    classes to build maps for
+     * @param executor executor to build maps on
+     * @return future completed with the number of classes warmed up once every map is built
+     */
+    public @NotNull CompletableFuture<Integer> warmUp(@NotNull Collection<Class<?>> roots, @NotNull Executor executor) {
+        Objects.requireNonNull(roots);
+        Objects.requireNonNull(executor);
+
+        final Set<Class<?>> seen = ConcurrentHashMap.newKeySet();
+        final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Class<?> root : roots) {
+            if (!seen.add(root)) {
+                continue;
+            }
+
+            tasks.add(CompletableFuture.supplyAsync(() -> getMethodMapFor(root), executor)
+                    .thenComposeAsync(map -> {
+                        // chains usually continue into whatever the root's methods return
+                        List<CompletableFuture<MethodMap>> returnTypes = new ArrayList<>();
+                        for (Method method : map.getAllMethods()) {
+                            final Class<?> returnType = method.getReturnType();
+                            if (!returnType.isPrimitive() && seen.add(returnType)) {
+                                returnTypes.add(CompletableFuture.supplyAsync(() -> getMethodMapFor(returnType), executor));
+                            }
+                        }
+
+                        return CompletableFuture.allOf(returnTypes.toArray(new CompletableFuture<?>[0]));
+                    }, executor));
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> seen.size());
     }
 
     /**
@@ -50,7 +202,9 @@ public class MethodMapProvider {
      * @return mapped classes
      */
     public @NotNull Set<Class<?>> getAllMappedClasses() {
-        return new HashSet<>(cachedMethodMaps.keySet());
+        synchronized (mappedClasses) {
+            return new HashSet<>(mappedClasses.keySet());
+        }
     }
 
     /**
@@ -59,14 +213,140 @@ public class MethodMapProvider {
      * @return all method maps
      */
     public @NotNull Set<MethodMap> getAllMethodMaps() {
-        return new HashSet<>(cachedMethodMaps.values());
+        Set<MethodMap> maps = new HashSet<>();
+        for (Class<?> clazz : getAllMappedClasses()) {
+            maps.add(getMethodMapFor(clazz));
+        }
+
+        return maps;
     }
 
     /**
      * Clears the global cache, forcing future maps to be regenerated
      */
     public void clearCache() {
-        this.cachedMethodMaps.clear();
+        synchronized (mappedClasses) {
+            for (Class<?> clazz : mappedClasses.keySet()) {
+                cachedMethodMaps.remove(clazz);
+            }
+
+            for (Class<?> clazz : parentClasses.keySet()) {
+                cachedMethodMaps.remove(clazz);
+            }
+
+            mappedClasses.clear();
+            parentClasses.clear();
+            insertionOrder.clear();
+        }
+    }
+
+    /**
+     * Gets the number of times a method map has been asked for
+     *
+     * @return lookup count
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * Gets the number of lookups that weren't already held by this provider
+     * <p>
+     * Maps that were first built as a parent of another map still count as a miss the first time they're asked for.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of method maps currently held, not counting maps built only as parents of others
+     *
+     * @return map count
+     */
+    public int getCachedMapCount() {
+        synchronized (mappedClasses) {
+            return mappedClasses.size();
+        }
+    }
+
+    /**
+     * Records a newly computed map and evicts old ones if we are over our bound
+     *
+     * @param clazz newly mapped class
+     */
+    private void onMapComputed(Class<?> clazz) {
+        synchronized (mappedClasses) {
+            mappedClasses.put(clazz, Boolean.TRUE);
+            parentClasses.remove(clazz);
+            if (maximumSize == 0) {
+                return;
+            }
+
+            insertionOrder.add(new WeakReference<>(clazz));
+            while (mappedClasses.size() > maximumSize) {
+                WeakReference<Class<?>> oldest = insertionOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+
+                Class<?> evicted = oldest.get();
+                if (evicted != null && mappedClasses.remove(evicted) != null) {
+                    cachedMethodMaps.remove(evicted);
+                }
+            }
+
+            // classes can be unloaded without ever being evicted, don't let their references pile up
+            if (insertionOrder.size() > maximumSize * 2) {
+                insertionOrder.removeIf(ref -> ref.get() == null);
+            }
+        }
     }
 
+    /**
+     * Holder stored against each class, lets us build the map at most once per entry
+     */
+    private final class CacheEntry {
+        private final Class<?> clazz;
+        private volatile MethodMap methodMap;
+        private volatile boolean recorded;
+
+        private CacheEntry(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        private MethodMap get() {
+            MethodMap map = this.methodMap;
+            if (map == null) {
+                synchronized (this) {
+                    map = this.methodMap;
+                    if (map == null) {
+                        // parent entries are only ever locked after their children, so this can't deadlock
+                        final List<MethodMap> parents = getParentMapsFor(clazz);
+                        final MethodMapStore store = MethodMapProvider.this.store;
+                        map = store != null ? store.read(clazz, parents) : null;
+                        if (map == null) {
+                            map = new MethodMap(clazz, parents);
+                        }
+
+                        this.methodMap = map;
+                        synchronized (mappedClasses) {
+                            parentClasses.put(clazz, Boolean.TRUE);
+                        }
+                    }
+                }
+            }
+
+            return map;
+        }
+
+        private synchronized void record() {
+            if (!recorded) {
+                recorded = true;
+                misses.increment();
+                onMapComputed(clazz);
+            }
+        }
+    }
 }
@@ -0,0 +1,380 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.CodeSource;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Compact binary copy of the method maps built by a {@link MethodMapProvider}
+ * <p>
+ * The file holds, for every class, the method entries its map stores itself along with the declaring class,
+ * name, and parameter types needed to find each method again. All strings are written once into a shared table.
+ * Files are memory-mapped when opened and each class is only decoded once a map is requested for it, the
+ * {@link Method}s themselves are resolved on first use.
+ * <p>
+ * Every file is keyed by a fingerprint of the environment that produced it, a file with a different
+ * fingerprint is treated as stale and ignored. Each class's record also notes the jar or directory the class
+ * was loaded from, see {@link #describeCodeSource(Class)}, so classes from jars outside the fingerprint, such as
+ * other plugins, are rebuilt through reflection once those jars change.
+ */
+public final class MethodMapStore {
+    private static final int MAGIC = 0x44424D4D; // DBMM
+    private static final int FORMAT_VERSION = 2;
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    private final ByteBuffer buffer;
+    private final int[] stringOffsets;
+    private final String[] strings;
+    private final Map<String, Integer> classOffsets;
+    private final Map<String, String> codeSources = new ConcurrentHashMap<>(); // by location
+
+    static {
+        for (Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class}) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private MethodMapStore(ByteBuffer buffer, int[] stringOffsets, Map<String, Integer> classOffsets) {
+        this.buffer = buffer;
+        this.stringOffsets = stringOffsets;
+        this.strings = new String[stringOffsets.length];
+        this.classOffsets = classOffsets;
+    }
+
+    /**
+     * Opens a previously saved store
+     *
+     * @param file        file to open
+     * @param fingerprint fingerprint of the current environment, see {@link #fingerprint(String...)}
+     * @return the store or null if the file doesn't exist or is stale
+     * @throws IOException if the file can't be read or is corrupt
+     */
+    public static @Nullable MethodMapStore open(@NotNull Path file, @NotNull String fingerprint) throws IOException {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(fingerprint);
+
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !fingerprint.equals(readString(buffer))) {
+                return null;
+            }
+
+            final int[] stringOffsets = new int[buffer.getInt()];
+            for (int i = 0; i < stringOffsets.length; i++) {
+                stringOffsets[i] = buffer.position();
+                final int length = buffer.getInt();
+                buffer.position(buffer.position() + length);
+            }
+
+            final MethodMapStore store = new MethodMapStore(buffer, stringOffsets, new HashMap<>());
+            final int classCount = buffer.getInt();
+            for (int i = 0; i < classCount; i++) {
+                store.classOffsets.put(store.getString(buffer.getInt()), buffer.position());
+                skipClass(buffer);
+            }
+
+            return store;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException ex) {
+            throw new IOException("Corrupt method map store " + file, ex);
+        }
+    }
+
+    /**
+     * Writes the given maps to a file, replacing any existing store
+     *
+     * @param file        file to write to
+     * @param fingerprint fingerprint of the current environment, see {@link #fingerprint(String...)}
+     * @param maps        maps to save
+     * @throws IOException if the file can't be written
+     */
+    public static void save(@NotNull Path file, @NotNull String fingerprint, @NotNull Collection<MethodMap> maps) throws IOException {
+        final Map<String, String> codeSources = new HashMap<>();
+        save(file, fingerprint, maps, clazz -> describeCodeSource(clazz, codeSources));
+    }
+
+    static void save(Path file, String fingerprint, Collection<MethodMap> maps, Function<Class<?>, String> codeSources) throws IOException {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(fingerprint);
+        Objects.requireNonNull(maps);
+
+        final Map<String, Integer> stringIds = new LinkedHashMap<>();
+        final List<int[]> classes = new ArrayList<>(maps.size());
+        for (MethodMap map : maps) {
+            final String codeSource = codeSources.apply(map.getMappedClass());
+            classes.add(map.writeRecord(string -> stringIds.computeIfAbsent(string, k -> stringIds.size()), codeSource));
+        }
+
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        // never leave a half written store behind, and don't truncate a file that may still be mapped
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, fingerprint);
+
+                out.writeInt(stringIds.size());
+                for (String string : stringIds.keySet()) {
+                    writeString(out, string);
+                }
+
+                out.writeInt(classes.size());
+                for (int[] record : classes) {
+                    for (int value : record) {
+                        out.writeInt(value);
+                    }
+                }
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Hashes the given values into a fingerprint for {@link #open(Path, String)} and {@link #save(Path, String, Collection)}
+     *
+     * @param parts values that identify the environment, such as platform and plugin versions
+     * @return fingerprint
+     */
+    public static @NotNull String fingerprint(@NotNull String... parts) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is a required algorithm", ex);
+        }
+
+        for (String part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        final StringBuilder out = new StringBuilder();
+        for (byte b : digest.digest()) {
+            out.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Describes where a class was loaded from, in a way that changes when that jar or directory is rebuilt
+     *
+     * @param clazz class to describe
+     * @return location, size, and modification time of the class's code source, or an empty string for
+     * classes without one, such as those of the JDK
+     */
+    public static @NotNull String describeCodeSource(@NotNull Class<?> clazz) {
+        return describeCodeSource(clazz, new HashMap<>());
+    }
+
+    private static String describeCodeSource(Class<?> clazz, Map<String, String> cache) {
+        final ProtectionDomain domain = clazz.getProtectionDomain();
+        final CodeSource source = domain != null ? domain.getCodeSource() : null;
+        if (source == null || source.getLocation() == null) {
+            return "";
+        }
+
+        // rebuilt jars can keep their name, their size and modification time won't both survive
+        return cache.computeIfAbsent(source.getLocation().toString(), location -> {
+            try {
+                Path path = Paths.get(source.getLocation().toURI());
+                return path + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+            } catch (URISyntaxException | IOException | IllegalArgumentException | UnsupportedOperationException | FileSystemNotFoundException ex) {
+                return location;
+            }
+        });
+    }
+
+    /**
+     * Gets whether this store has a saved record for a class
+     *
+     * @param clazz class to check
+     * @return true if a map for the class was saved
+     */
+    public boolean contains(@NotNull Class<?> clazz) {
+        return classOffsets.containsKey(clazz.getName());
+    }
+
+    /**
+     * Gets the number of classes in this store
+     *
+     * @return class count
+     */
+    public int size() {
+        return classOffsets.size();
+    }
+
+    /**
+     * Builds a map for a class from its saved record
+     *
+     * @param clazz   class to build a map for
+     * @param parents parent maps, exactly as {@link MethodMap} would be given them when built through reflection
+     * @return the map or null if there is no record for the class, or the class now comes from a different jar
+     */
+    @Nullable MethodMap read(Class<?> clazz, List<MethodMap> parents) {
+        final Integer offset = classOffsets.get(clazz.getName());
+        if (offset == null) {
+            return null;
+        }
+
+        // absolute reads only, several maps may be decoded at once
+        int position = offset;
+        if (!getString(buffer.getInt(position)).equals(describeCodeSource(clazz, codeSources))) {
+            return null;
+        }
+
+        final int size = buffer.getInt(position += 4);
+        final int hiddenCount = buffer.getInt(position += 4);
+        final Set<String> hidden = hiddenCount == 0 ? Collections.emptySet() : new HashSet<>();
+        for (int i = 0; i < hiddenCount; i++) {
+            hidden.add(getString(buffer.getInt(position += 4)));
+        }
+
+        final int entryCount = buffer.getInt(position += 4);
+        final Map<String, String[]> entries = new HashMap<>();
+        for (int i = 0; i < entryCount; i++) {
+            final String id = getString(buffer.getInt(position += 4));
+            final String[] descriptor = new String[buffer.getInt(position += 4)];
+            for (int j = 0; j < descriptor.length; j++) {
+                descriptor[j] = getString(buffer.getInt(position += 4));
+            }
+
+            entries.put(id, descriptor);
+        }
+
+        return new MethodMap(clazz, parents, entries, hidden, size);
+    }
+
+    /**
+     * Finds a method from a saved descriptor
+     *
+     * @param owner      class the method was mapped for
+     * @param descriptor declaring class, method name, then parameter type names
+     * @return the method
+     * @throws ReflectiveOperationException if the method no longer exists
+     */
+    static Method resolve(Class<?> owner, String[] descriptor) throws ReflectiveOperationException {
+        final ClassLoader loader = owner.getClassLoader();
+        final Class<?>[] parameters = new Class<?>[descriptor.length - 2];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = forName(descriptor[i + 2], loader);
+        }
+
+        return forName(descriptor[0], loader).getMethod(descriptor[1], parameters);
+    }
+
+    /**
+     * Gets the descriptor {@link #resolve(Class, String[])} can find a method again with
+     *
+     * @param method method to describe
+     * @return descriptor
+     */
+    static String[] describe(Method method) {
+        final Class<?>[] parameters = method.getParameterTypes();
+        final String[] descriptor = new String[parameters.length + 2];
+        descriptor[0] = method.getDeclaringClass().getName();
+        descriptor[1] = method.getName();
+        for (int i = 0; i < parameters.length; i++) {
+            descriptor[i + 2] = parameters[i].getName();
+        }
+
+        return descriptor;
+    }
+
+    private static Class<?> forName(String name, ClassLoader loader) throws ClassNotFoundException {
+        final Class<?> primitive = PRIMITIVES.get(name);
+        return primitive != null ? primitive : Class.forName(name, false, loader);
+    }
+
+    private String getString(int index) {
+        String string = strings[index];
+        if (string == null) {
+            final int offset = stringOffsets[index];
+            final byte[] bytes = new byte[buffer.getInt(offset)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(offset + 4 + i);
+            }
+
+            // racing threads decode the same value, strings are safe to publish this way
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = string;
+        }
+
+        return string;
+    }
+
+    private static void skipClass(ByteBuffer buffer) {
+        buffer.getInt(); // code source
+        buffer.getInt(); // size
+        final int hiddenCount = buffer.getInt();
+        buffer.position(buffer.position() + hiddenCount * 4);
+
+        final int entryCount = buffer.getInt();
+        for (int i = 0; i < entryCount; i++) {
+            buffer.getInt(); // id
+            final int descriptorLength = buffer.getInt();
+            buffer.position(buffer.position() + descriptorLength * 4);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -18,13 +18,33 @@
 package io.zachbr.debuggery.reflection;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.function.Predicate;
 
 public class ReflectionUtil {
 
+    /**
+     * Caches simple names, {@link Class#getSimpleName()} is recomputed on every call
+     */
+    private static final ClassValue<String> simpleNames = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getSimpleName();
+        }
+    };
+
+    /**
+     * Reusable per-thread buffer for building method ids
+     */
+    private static final ThreadLocal<StringBuilder> idBuilder = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
     /**
      * Tests if a given string starts with a vowel
      */
@@ -74,26 +94,67 @@ public class ReflectionUtil {
      * @return a formatted name
      */
     public static @NotNull String getFormattedMethodSignature(Method method) {
-        StringBuilder builder = new StringBuilder();
-        builder.append(method.getName());
-
-        builder.append("(");
-        boolean first = true;
-        for (Class<?> type : method.getParameterTypes()) {
-            if (first) {
-                builder.append(type.getSimpleName());
-                first = false;
-            } else {
-                builder.append(", ").append(type.getSimpleName());
+        return appendSignature(new StringBuilder(), method, ", ").toString();
+    }
+
+    /**
+     * Gets the identifier used to look up a method in a {@link MethodMap}
+     * <p>
+     * Identifiers are the formatted signature without any whitespace, "method(ParamType,ParamType)".
+     * The same method declared on many classes, such as those from {@link Object}, always yields the
+     * same interned instance so that maps don't each retain their own copy.
+     *
+     * @param method method to get an identifier for
+     * @return interned identifier
+     */
+    public static @NotNull String getMethodId(Method method) {
+        final StringBuilder builder = idBuilder.get();
+        builder.setLength(0);
+
+        return appendSignature(builder, method, ",").toString().intern();
+    }
+
+    private static StringBuilder appendSignature(StringBuilder builder, Method method, String separator) {
+        builder.append(method.getName()).append('(');
+
+        final Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (i != 0) {
+                builder.append(separator);
             }
+
+            builder.append(simpleNames.get(types[i]));
         }
-        builder.append(")");
 
-        return builder.toString();
+        return builder.append(')');
     }
 
-    public static @NotNull String getMethodId(Method method) {
-        return getFormattedMethodSignature(method).replaceAll(" ", "");
+    /**
+     * Unreflects a method into a handle that can be invoked as {@code (Object receiver, Object[] args) -> Object}
+     * <p>
+     * Void methods return null and primitive returns are boxed, just like {@link Method#invoke(Object, Object...)}.
+     * Static methods accept and ignore the receiver.
+     *
+     * @param method method to unreflect
+     * @return spreading method handle or null if the method cannot be accessed
+     */
+    public static @Nullable MethodHandle getSpreadingHandle(@NotNull Method method) {
+        method.trySetAccessible();
+
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+        } catch (IllegalAccessException ex) {
+            return null;
+        }
+
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+
+        final int paramCount = method.getParameterCount();
+        return handle.asType(MethodType.genericMethodType(paramCount + 1))
+                .asSpreader(Object[].class, paramCount);
     }
 
     /**
@@ -0,0 +1,190 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.chain;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Describes how a reflection chain may be split between a platform's main thread and worker threads
+ * <p>
+ * A step is considered safe to run off the main thread when its receiver is an instance of one of the
+ * safe classes, or when the method called matches one of the safe methods, and every one of its arguments
+ * can be instantiated without reading live state. Input handlers for types such as entities or locations
+ * look things up from the sender and the world, so only primitives, their wrappers, strings, enums, and
+ * arrays of these count. Everything else, including the instantiation of that step's arguments, is handed
+ * to the sync executor and waited on.
+ * <p>
+ * Note that marking a broad supertype such as {@link Object} safe marks every step safe.
+ */
+public final class AsyncChainPolicy {
+    private final Executor syncExecutor;
+    private final Executor asyncExecutor;
+    private final Set<Class<?>> safeClasses;
+    private final Map<Class<?>, Set<String>> safeMethods;
+
+    /**
+     * Creates a new policy
+     * <p>
+     * Chains block while waiting on the sync executor, so it must never run its tasks on
+     * the same threads as the async executor.
+     *
+     * @param syncExecutor  executor that runs tasks on the platform's main thread
+     * @param asyncExecutor executor that runs chains and output formatting
+     * @param safeClasses   classes whose instances can be operated on from any thread
+     * @param safeMethods   methods, keyed by the type that declares them, that can be called from any thread
+     */
+    public AsyncChainPolicy(@NotNull Executor syncExecutor, @NotNull Executor asyncExecutor,
+                            @NotNull Collection<Class<?>> safeClasses, @NotNull Map<Class<?>, ? extends Collection<String>> safeMethods) {
+        this.syncExecutor = Objects.requireNonNull(syncExecutor);
+        this.asyncExecutor = Objects.requireNonNull(asyncExecutor);
+        this.safeClasses = Set.copyOf(safeClasses);
+
+        Map<Class<?>, Set<String>> methods = new HashMap<>();
+        for (Map.Entry<Class<?>, ? extends Collection<String>> entry : safeMethods.entrySet()) {
+            methods.put(entry.getKey(), Set.copyOf(entry.getValue()));
+        }
+        this.safeMethods = Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * Gets whether calling the given method on an instance of the given class is safe off the main thread
+     *
+     * @param receiverClass runtime class of the instance being operated on
+     * @param method        method being called
+     * @return true if the step can run on any thread
+     */
+    public boolean isAsyncSafe(@NotNull Class<?> receiverClass, @NotNull Method method) {
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isInputAsyncSafe(parameterType)) {
+                return false;
+            }
+        }
+
+        for (Class<?> safe : safeClasses) {
+            if (safe.isAssignableFrom(receiverClass)) {
+                return true;
+            }
+        }
+
+        for (Map.Entry<Class<?>, Set<String>> entry : safeMethods.entrySet()) {
+            if (entry.getKey().isAssignableFrom(receiverClass) && entry.getValue().contains(method.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets whether arguments of the given type can be instantiated from input off the main thread
+     *
+     * @param type parameter type
+     * @return true if its input handler never reads live state
+     */
+    private static boolean isInputAsyncSafe(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+
+        return type.isPrimitive() || type == String.class || type.isEnum() || type == Boolean.class || type == Character.class
+                || Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang.");
+    }
+
+    /**
+     * Gets whether a chain's result can be formatted off the main thread
+     * <p>
+     * Output handlers may read live state from the objects they format, so only results that are instances of
+     * the safe classes, or arrays of them or of primitives, are considered safe. Null is always safe.
+     *
+     * @param result result to format
+     * @return true if the result can be formatted on any thread
+     */
+    public boolean isAsyncSafe(@Nullable Object result) {
+        if (result == null) {
+            return true;
+        }
+
+        Class<?> type = result.getClass();
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+
+        if (type.isPrimitive()) {
+            return true;
+        }
+
+        for (Class<?> safe : safeClasses) {
+            if (safe.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Runs the given task on the sync executor and waits for its result
+     * <p>
+     * Exceptions thrown by the task are rethrown as-is, waiting can be interrupted.
+     *
+     * @param task task to run
+     * @param <T>  result type
+     * @return task result
+     * @throws Exception anything thrown by the task, or if waiting was interrupted
+     */
+    <T> T callSync(@NotNull Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        syncExecutor.execute(future);
+
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the executor that runs tasks on the platform's main thread
+     *
+     * @return sync executor
+     */
+    public @NotNull Executor getSyncExecutor() {
+        return syncExecutor;
+    }
+
+    /**
+     * Gets the executor chains are run on
+     *
+     * @return async executor
+     */
+    public @NotNull Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+}
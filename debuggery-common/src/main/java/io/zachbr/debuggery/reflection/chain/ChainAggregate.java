@@ -0,0 +1,310 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.chain;
+
+import io.zachbr.debuggery.reflection.types.TypeHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Summary of the results of running one chain against many root instances
+ * <p>
+ * Results are folded in as they're produced rather than kept. Every distinct ending value is counted exactly,
+ * but only the most common ones, up to a fixed limit, are reported. The counts take memory in proportion to the
+ * number of distinct values, which is at most the number of roots the chain was run against.
+ */
+public final class ChainAggregate {
+    public static final int DEFAULT_MAX_DISTINCT_VALUES = 32;
+    private final int maxDistinctValues;
+    private final long[] countsByType = new long[ReflectionResult.Type.values().length];
+    private final Map<ReflectionResult.Type, String> firstReasons = new EnumMap<>(ReflectionResult.Type.class);
+    private final Map<Object, Long> distinctValues = new HashMap<>();
+    private long numericCount;
+    private double numericMin = Double.POSITIVE_INFINITY;
+    private double numericMax = Double.NEGATIVE_INFINITY;
+    private double numericSum;
+    private boolean allIntegral = true;
+
+    /**
+     * Creates a new, empty, aggregate
+     *
+     * @param maxDistinctValues maximum number of distinct ending values to report
+     */
+    public ChainAggregate(int maxDistinctValues) {
+        if (maxDistinctValues < 0) {
+            throw new IllegalArgumentException("Distinct value limit cannot be negative!");
+        }
+
+        this.maxDistinctValues = maxDistinctValues;
+    }
+
+    /**
+     * Folds a single chain result into this aggregate
+     *
+     * @param result result to add
+     */
+    void add(@NotNull ReflectionResult result) {
+        final ReflectionResult.Type type = result.getType();
+        countsByType[type.ordinal()]++;
+        if (type != ReflectionResult.Type.SUCCESS) {
+            firstReasons.putIfAbsent(type, result.getReason());
+            return;
+        }
+
+        final Object value = result.getEndingInstance();
+        distinctValues.merge(value, 1L, Long::sum);
+
+        if (value instanceof Number) {
+            final Number number = (Number) value;
+            final double asDouble = number.doubleValue();
+            numericCount++;
+            numericMin = Math.min(numericMin, asDouble);
+            numericMax = Math.max(numericMax, asDouble);
+            numericSum += asDouble;
+            allIntegral &= number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+        }
+    }
+
+    /**
+     * Counts chains that were never run because their batch ran out of time
+     *
+     * @param count  number of chains skipped
+     * @param reason why they were skipped
+     */
+    void addTimedOut(long count, @NotNull String reason) {
+        if (count == 0) {
+            return;
+        }
+
+        countsByType[ReflectionResult.Type.TIMED_OUT.ordinal()] += count;
+        firstReasons.putIfAbsent(ReflectionResult.Type.TIMED_OUT, reason);
+    }
+
+    /**
+     * Folds another aggregate into this one
+     *
+     * @param other aggregate to add
+     */
+    void merge(@NotNull ChainAggregate other) {
+        for (int i = 0; i < countsByType.length; i++) {
+            countsByType[i] += other.countsByType[i];
+        }
+
+        for (Map.Entry<ReflectionResult.Type, String> entry : other.firstReasons.entrySet()) {
+            firstReasons.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<Object, Long> entry : other.distinctValues.entrySet()) {
+            distinctValues.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+
+        numericCount += other.numericCount;
+        numericMin = Math.min(numericMin, other.numericMin);
+        numericMax = Math.max(numericMax, other.numericMax);
+        numericSum += other.numericSum;
+        allIntegral &= other.allIntegral;
+    }
+
+    /**
+     * Gets the total number of chains run
+     *
+     * @return chain count
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long count : countsByType) {
+            total += count;
+        }
+
+        return total;
+    }
+
+    /**
+     * Gets the number of chains that ended with the given result type
+     *
+     * @param type result type
+     * @return chain count
+     */
+    public long getCount(@NotNull ReflectionResult.Type type) {
+        return countsByType[type.ordinal()];
+    }
+
+    /**
+     * Gets the reason given by the first chain to end with the given, unsuccessful, result type
+     *
+     * @param type result type
+     * @return reason or null if no chain ended that way
+     */
+    public @Nullable String getFirstReason(@NotNull ReflectionResult.Type type) {
+        return firstReasons.get(type);
+    }
+
+    /**
+     * Gets the most common ending values of successful chains and how often they occurred, most common first
+     * <p>
+     * At most the distinct value limit given at creation are returned, values with equal counts are in no
+     * particular order.
+     *
+     * @return value counts
+     */
+    public @NotNull Map<Object, Long> getDistinctValues() {
+        // keep the most common seen so far in a min-heap, so only the limit is ever sorted
+        final Comparator<Map.Entry<Object, Long>> byCount = Map.Entry.comparingByValue();
+        final PriorityQueue<Map.Entry<Object, Long>> top = new PriorityQueue<>(Math.max(1, maxDistinctValues), byCount);
+        for (Map.Entry<Object, Long> entry : distinctValues.entrySet()) {
+            if (top.size() < maxDistinctValues) {
+                top.add(entry);
+            } else if (maxDistinctValues != 0 && entry.getValue() > top.peek().getValue()) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+
+        final List<Map.Entry<Object, Long>> entries = new ArrayList<>(top);
+        entries.sort(byCount.reversed());
+
+        final Map<Object, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<Object, Long> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+
+        return Collections.unmodifiableMap(sorted);
+    }
+
+    /**
+     * Gets the number of successful chains whose ending value is not among the values reported by
+     * {@link #getDistinctValues()}
+     *
+     * @return unreported value count
+     */
+    public long getUntrackedValueCount() {
+        long reported = 0;
+        for (long count : getDistinctValues().values()) {
+            reported += count;
+        }
+
+        return getCount(ReflectionResult.Type.SUCCESS) - reported;
+    }
+
+    /**
+     * Gets the number of successful chains that ended in a {@link Number}
+     *
+     * @return numeric result count
+     */
+    public long getNumericCount() {
+        return numericCount;
+    }
+
+    /**
+     * Gets the smallest numeric ending value
+     *
+     * @return minimum or NaN if there were no numeric values
+     */
+    public double getMin() {
+        return numericCount == 0 ? Double.NaN : numericMin;
+    }
+
+    /**
+     * Gets the largest numeric ending value
+     *
+     * @return maximum or NaN if there were no numeric values
+     */
+    public double getMax() {
+        return numericCount == 0 ? Double.NaN : numericMax;
+    }
+
+    /**
+     * Gets the sum of all numeric ending values
+     *
+     * @return sum
+     */
+    public double getSum() {
+        return numericSum;
+    }
+
+    /**
+     * Gets the mean of all numeric ending values
+     *
+     * @return mean or NaN if there were no numeric values
+     */
+    public double getAverage() {
+        return numericCount == 0 ? Double.NaN : numericSum / numericCount;
+    }
+
+    /**
+     * Formats this aggregate for display
+     *
+     * @param typeHandler handler used to format ending values
+     * @param budget      budget the whole summary must fit within
+     * @return formatted summary
+     */
+    public @NotNull String format(@NotNull TypeHandler typeHandler, @NotNull OutputBudget budget) {
+        final StringBuilder out = new StringBuilder();
+        try {
+            appendSummary(out, typeHandler, budget);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // StringBuilder never throws
+        }
+
+        return out.toString();
+    }
+
+    private void appendSummary(StringBuilder out, TypeHandler typeHandler, OutputBudget budget) throws IOException {
+        budget.append(out, "Ran " + getTotal() + " chains");
+        for (ReflectionResult.Type type : ReflectionResult.Type.values()) {
+            final long count = getCount(type);
+            if (count != 0) {
+                budget.append(out, "\n" + type + ": " + count);
+                final String reason = firstReasons.get(type);
+                if (reason != null) {
+                    budget.append(out, " (" + reason + ")");
+                }
+            }
+        }
+
+        if (numericCount != 0) {
+            budget.append(out, "\nmin: " + formatNumber(getMin()) + ", max: " + formatNumber(getMax())
+                    + ", avg: " + getAverage() + ", sum: " + formatNumber(numericSum));
+        }
+
+        final Map<Object, Long> topValues = getDistinctValues();
+        if (!topValues.isEmpty()) {
+            long reported = 0;
+            budget.append(out, "\nvalues:");
+            for (Map.Entry<Object, Long> entry : topValues.entrySet()) {
+                reported += entry.getValue();
+                budget.append(out, "\n" + entry.getValue() + "x ");
+                typeHandler.appendOutputFor(entry.getKey(), out, budget);
+            }
+
+            final long unreported = getCount(ReflectionResult.Type.SUCCESS) - reported;
+            if (unreported != 0) {
+                budget.append(out, "\n" + unreported + " more across " + (distinctValues.size() - topValues.size()) + " other values");
+            }
+        }
+    }
+
+    private String formatNumber(double value) {
+        return allIntegral && Math.abs(value) < 0x1p53 ? Long.toString((long) value) : Double.toString(value);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.chain;
+
+import io.zachbr.debuggery.reflection.types.handlers.base.IHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * An immutable, pre-resolved series of steps for a given chain input
+ * <p>
+ * Plans are recorded as a chain is run, so each step knows the runtime class it was resolved
+ * against. A step is only reused when the instance it is about to operate on is of that same class.
+ */
+final class ChainPlan {
+    private final List<Step> steps;
+    private final int handlerGeneration;
+
+    ChainPlan(@NotNull List<Step> steps, int handlerGeneration) {
+        this.steps = List.copyOf(steps);
+        this.handlerGeneration = handlerGeneration;
+    }
+
+    /**
+     * Gets the step at the given position if it was resolved against the given receiver class
+     *
+     * @param index         step position in the chain
+     * @param receiverClass runtime class of the instance the step will operate on
+     * @return matching step or null if this plan can't be used for it
+     */
+    @Nullable Step getStep(int index, @NotNull Class<?> receiverClass) {
+        if (index >= steps.size()) {
+            return null;
+        }
+
+        Step step = steps.get(index);
+        return step.receiverClass == receiverClass ? step : null;
+    }
+
+    /**
+     * Gets the {@link io.zachbr.debuggery.reflection.types.TypeHandler} generation the
+     * input handlers in this plan were resolved against
+     *
+     * @return handler generation
+     */
+    int getHandlerGeneration() {
+        return handlerGeneration;
+    }
+
+    /**
+     * Gets all steps in this plan
+     *
+     * @return unmodifiable list of steps
+     */
+    @NotNull List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Gets whether every class this plan references can be seen from the given classloader
+     * <p>
+     * A class is considered visible when it was loaded by the given loader, one of its parents, or the bootstrap loader.
+     *
+     * @param loader classloader to check against, null for the bootstrap loader
+     * @return true if nothing in this plan would outlive that loader's classes
+     */
+    boolean isVisibleFrom(@Nullable ClassLoader loader) {
+        for (Step step : steps) {
+            if (!isVisibleFrom(loader, step.receiverClass) || !isVisibleFrom(loader, step.method.getDeclaringClass())
+                    || !isVisibleFrom(loader, step.method.getReturnType())) {
+                return false;
+            }
+
+            for (Class<?> paramType : step.method.getParameterTypes()) {
+                if (!isVisibleFrom(loader, paramType)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isVisibleFrom(@Nullable ClassLoader loader, @NotNull Class<?> clazz) {
+        final ClassLoader target = clazz.getClassLoader();
+        if (target == null) {
+            return true;
+        }
+
+        for (ClassLoader current = loader; current != null; current = current.getParent()) {
+            if (current == target) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A single resolved method call in a chain
+     */
+    static final class Step {
+        final Class<?> receiverClass;
+        final Method method;
+        final @Nullable MethodHandle handle;
+        final List<String> args;
+        final IHandler[] inputHandlers; // entries are null when no handler exists
+
+        Step(@NotNull Class<?> receiverClass, @NotNull Method method, @Nullable MethodHandle handle,
+             @NotNull List<String> args, @NotNull IHandler[] inputHandlers) {
+            if (args.size() != method.getParameterCount() || inputHandlers.length != args.size()) {
+                throw new IllegalArgumentException("Step arity does not match method: " + method);
+            }
+
+            this.receiverClass = receiverClass;
+            this.method = method;
+            this.handle = handle;
+            this.args = List.copyOf(args);
+            this.inputHandlers = inputHandlers;
+        }
+
+        /**
+         * Gets the number of input tokens this step consumes, including the method id
+         *
+         * @return token count
+         */
+        int getTokenCount() {
+            return args.size() + 1;
+        }
+    }
+
+    /**
+     * Cache key for a plan, the raw input of the chain
+     * <p>
+     * Plans are cached per root class, so the class a chain starts on isn't part of the key.
+     */
+    static final class Key {
+        private final String[] input;
+        private final int hash;
+
+        Key(@NotNull String[] input) {
+            this.input = input.clone();
+            this.hash = Arrays.hashCode(this.input);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key other = (Key) o;
+            return Arrays.equals(input, other.input);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
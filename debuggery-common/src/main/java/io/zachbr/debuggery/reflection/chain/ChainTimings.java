@@ -0,0 +1,235 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.chain;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Where the time went while running a chain, and formatting its result
+ * <p>
+ * Each step is split into resolving its method, instantiating its arguments, and the call itself.
+ * Allocation is counted per thread, so it is only available on JVMs that support
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, otherwise it is reported as -1.
+ */
+public final class ChainTimings {
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = findAllocationBean();
+    private final List<Step> steps = new ArrayList<>();
+    private long outputNanos = -1;
+    private long outputBytes = -1;
+
+    ChainTimings() {
+    }
+
+    /**
+     * Records a step of the chain
+     *
+     * @param step           resolved step
+     * @param planned        whether the step came from a cached plan
+     * @param resolveNanos   time spent resolving the step
+     * @param argsNanos      time spent instantiating its arguments
+     * @param invokeNanos    time spent calling it
+     * @param allocatedBytes bytes allocated by the step, or -1 if unknown
+     */
+    void addStep(@NotNull ChainPlan.Step step, boolean planned, long resolveNanos, long argsNanos, long invokeNanos, long allocatedBytes) {
+        steps.add(new Step(step.method.getName(), planned, resolveNanos, argsNanos, invokeNanos, allocatedBytes));
+    }
+
+    /**
+     * Records how long it took to format and send the result of the chain
+     *
+     * @param nanos          time spent on output
+     * @param allocatedBytes bytes allocated by the output, or -1 if unknown
+     */
+    public void recordOutput(long nanos, long allocatedBytes) {
+        this.outputNanos = nanos;
+        this.outputBytes = allocatedBytes;
+    }
+
+    /**
+     * Gets the timings of each step, in the order they ran
+     *
+     * @return unmodifiable list of step timings
+     */
+    public @NotNull List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Gets the time spent formatting output
+     *
+     * @return output time in nanoseconds, or -1 if it wasn't recorded
+     */
+    public long getOutputNanos() {
+        return outputNanos;
+    }
+
+    /**
+     * Gets the total time spent on the chain and its output
+     *
+     * @return total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = Math.max(0, outputNanos);
+        for (Step step : steps) {
+            total += step.getTotalNanos();
+        }
+
+        return total;
+    }
+
+    /**
+     * Gets the total bytes allocated by the chain and its output
+     *
+     * @return allocated bytes, or -1 if unknown
+     */
+    public long getTotalAllocatedBytes() {
+        if (ALLOCATION_BEAN == null) {
+            return -1;
+        }
+
+        long total = Math.max(0, outputBytes);
+        for (Step step : steps) {
+            total += Math.max(0, step.allocatedBytes);
+        }
+
+        return total;
+    }
+
+    /**
+     * Formats these timings for display, one line per step
+     *
+     * @return formatted timings
+     */
+    public @NotNull String format() {
+        final StringBuilder out = new StringBuilder();
+        out.append("Total ").append(formatNanos(getTotalNanos())).append(", ").append(formatBytes(getTotalAllocatedBytes()));
+
+        for (int i = 0; i < steps.size(); i++) {
+            final Step step = steps.get(i);
+            out.append('\n').append(i + 1).append(". ").append(step.methodName)
+                    .append(": resolve ").append(formatNanos(step.resolveNanos)).append(step.planned ? " (planned)" : "")
+                    .append(", args ").append(formatNanos(step.argsNanos))
+                    .append(", invoke ").append(formatNanos(step.invokeNanos))
+                    .append(", ").append(formatBytes(step.allocatedBytes));
+        }
+
+        if (outputNanos != -1) {
+            out.append("\noutput: ").append(formatNanos(outputNanos)).append(", ").append(formatBytes(outputBytes));
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Gets the number of bytes the current thread has allocated over its life
+     * <p>
+     * Only useful as the start of a measurement, see {@link #getAllocatedBytesSince(long)}.
+     *
+     * @return allocated bytes, or -1 if unsupported
+     */
+    public static long getAllocatedBytes() {
+        return ALLOCATION_BEAN == null ? -1 : ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Gets the number of bytes the current thread has allocated since the given measurement
+     *
+     * @param start result of an earlier {@link #getAllocatedBytes()} call on the same thread
+     * @return allocated bytes, or -1 if unsupported
+     */
+    public static long getAllocatedBytesSince(long start) {
+        return start == -1 ? -1 : getAllocatedBytes() - start;
+    }
+
+    private static com.sun.management.ThreadMXBean findAllocationBean() {
+        try {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                    return sunBean;
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException ignored) {
+            // not a HotSpot based JVM
+        }
+
+        return null;
+    }
+
+    private static String formatNanos(long nanos) {
+        return nanos / 1_000_000 + "." + String.format("%03d", nanos / 1000 % 1000) + "ms";
+    }
+
+    private static String formatBytes(long bytes) {
+        return bytes == -1 ? "allocation unknown" : bytes + " bytes";
+    }
+
+    /**
+     * Timings of a single step in a chain
+     */
+    public static final class Step {
+        private final String methodName;
+        private final boolean planned;
+        private final long resolveNanos;
+        private final long argsNanos;
+        private final long invokeNanos;
+        private final long allocatedBytes;
+
+        private Step(String methodName, boolean planned, long resolveNanos, long argsNanos, long invokeNanos, long allocatedBytes) {
+            this.methodName = methodName;
+            this.planned = planned;
+            this.resolveNanos = resolveNanos;
+            this.argsNanos = argsNanos;
+            this.invokeNanos = invokeNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public @NotNull String getMethodName() {
+            return methodName;
+        }
+
+        public boolean isPlanned() {
+            return planned;
+        }
+
+        public long getResolveNanos() {
+            return resolveNanos;
+        }
+
+        public long getArgsNanos() {
+            return argsNanos;
+        }
+
+        public long getInvokeNanos() {
+            return invokeNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getTotalNanos() {
+            return resolveNanos + argsNanos + invokeNanos;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.chain;
+
+import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A chain input that can be run many times, against one or more roots
+ * <p>
+ * The steps resolved for each root class are kept after the first run and reused directly, so repeated runs
+ * never resolve methods or look up the factory's plan cache again. Instances are not thread safe, use
+ * {@link #copy()} to hand the same resolved steps to another thread.
+ */
+public final class PreparedChain {
+    private final ReflectionChainFactory factory;
+    private final String[] input;
+    private final Map<Class<?>, ChainPlan> plans;
+
+    PreparedChain(@NotNull ReflectionChainFactory factory, @NotNull String[] input) {
+        this.factory = Objects.requireNonNull(factory);
+        this.input = input.clone();
+        this.plans = new HashMap<>();
+    }
+
+    private PreparedChain(PreparedChain other) {
+        this.factory = other.factory;
+        this.input = other.input;
+        this.plans = new HashMap<>(other.plans);
+    }
+
+    /**
+     * Runs the chain against a root instance
+     *
+     * @param root   instance to start the chain from
+     * @param sender sender running the chain
+     * @return chain result
+     */
+    public @NotNull ReflectionResult run(@NotNull Object root, @Nullable PlatformSender<?> sender) {
+        return run(root, sender, null);
+    }
+
+    /**
+     * Runs the chain against a root instance with its own time budget, in place of the factory's
+     *
+     * @param root       instance to start the chain from
+     * @param sender     sender running the chain
+     * @param timeBudget how long the chain may run in nanoseconds, 0 for no limit
+     * @return chain result
+     */
+    public @NotNull ReflectionResult run(@NotNull Object root, @Nullable PlatformSender<?> sender, long timeBudget) {
+        return run(root, sender, null, timeBudget);
+    }
+
+    /**
+     * Runs the chain against a root instance
+     *
+     * @param root   instance to start the chain from
+     * @param sender sender running the chain
+     * @param policy policy used to dispatch unsafe steps, or null to run every step on the calling thread
+     * @return chain result
+     */
+    @NotNull ReflectionResult run(@NotNull Object root, @Nullable PlatformSender<?> sender, @Nullable AsyncChainPolicy policy) {
+        return run(root, sender, policy, factory.getTimeBudget());
+    }
+
+    /**
+     * Runs the chain against a root instance with its own time budget
+     *
+     * @param root       instance to start the chain from
+     * @param sender     sender running the chain
+     * @param policy     policy used to dispatch unsafe steps, or null to run every step on the calling thread
+     * @param timeBudget how long the chain may run in nanoseconds, 0 for no limit
+     * @return chain result
+     */
+    @NotNull ReflectionResult run(@NotNull Object root, @Nullable PlatformSender<?> sender, @Nullable AsyncChainPolicy policy,
+                                  long timeBudget) {
+        Objects.requireNonNull(root);
+
+        final ReflectionChain chain = new ReflectionChain(factory, input, root, sender);
+        chain.setTimeBudget(timeBudget);
+        chain.runChain(policy, plans.get(root.getClass()));
+
+        final ChainPlan plan = chain.getPlan();
+        if (plan != null) {
+            plans.put(root.getClass(), plan);
+        }
+
+        return chain.getResult();
+    }
+
+    /**
+     * Gets the steps last resolved for a root class
+     *
+     * @param rootClass class of the root instance
+     * @return plan or null if the chain has not resolved any steps for the class
+     */
+    @Nullable ChainPlan getPlan(@NotNull Class<?> rootClass) {
+        return plans.get(rootClass);
+    }
+
+    /**
+     * Creates an independent copy that starts with every step resolved so far
+     *
+     * @return copy of this chain
+     */
+    public @NotNull PreparedChain copy() {
+        return new PreparedChain(this);
+    }
+
+    /**
+     * Gets the raw chain input
+     *
+     * @return copy of the input
+     */
+    public @NotNull String[] getInput() {
+        return input.clone();
+    }
+}
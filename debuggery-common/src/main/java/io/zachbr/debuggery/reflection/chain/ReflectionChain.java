@@ -17,7 +17,6 @@
 
 package io.zachbr.debuggery.reflection.chain;
 
-import io.zachbr.debuggery.DebuggeryBase;
 import io.zachbr.debuggery.Logger;
 import io.zachbr.debuggery.reflection.*;
 import io.zachbr.debuggery.reflection.types.InputException;
@@ -26,79 +25,199 @@ import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSende
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents a chain of reflection operations
  */
 class ReflectionChain {
+    private final ReflectionChainFactory factory;
     private final MethodMapProvider methodMapProvider;
     private final TypeHandler typeHandler;
     private final Logger logger;
 
+    private final String[] rawInput;
     private final List<String> input;
     private final Object initialInstance;
     private final @Nullable PlatformSender<?> sender;
+    private Object[] lastParameters;
+    private @Nullable ChainTimings timings;
+    private long timeBudget;
+    private long lastArgsNanos;
+    private long lastInvokeNanos;
+    private long lastStepBytes;
+    private long lastSyncNanos;
     private ReflectionResult result;
+    private @Nullable ChainPlan plan;
 
     ReflectionChain(ReflectionChainFactory factory, @NotNull String[] args,
                     @NotNull Object initialInstance, @Nullable PlatformSender<?> sender) {
+        this.factory = factory;
         this.methodMapProvider = factory.methodMapProvider;
         this.typeHandler = factory.typeHandler;
         this.logger = factory.logger;
 
+        this.rawInput = args;
         this.input = Arrays.asList(args);
         this.initialInstance = initialInstance;
         this.sender = sender;
+        this.timeBudget = factory.getTimeBudget();
+    }
+
+    /**
+     * Limits how long the chain may run when it is next run, in place of the factory's time budget
+     *
+     * @param nanos time budget in nanoseconds, 0 for no limit
+     */
+    void setTimeBudget(long nanos) {
+        this.timeBudget = nanos;
+    }
+
+    /**
+     * Records {@link ChainTimings} for each step when the chain is next run, see {@link ReflectionResult#getTimings()}
+     */
+    void recordTimings() {
+        this.timings = new ChainTimings();
     }
 
     /**
      * Performs a series of reflective operations as specified at creation
+     * <p>
+     * Steps are taken from a cached {@link ChainPlan} whenever one matches, anything else is resolved
+     * as we go and recorded into a new plan for next time.
      */
     void runChain() {
-        MethodMap reflectionMap;
+        runChain(null);
+    }
+
+    /**
+     * Performs a series of reflective operations as specified at creation
+     * <p>
+     * When a policy is given, steps it does not consider async safe are handed to its sync executor
+     * and waited on, everything else runs on the calling thread.
+     *
+     * @param policy policy used to dispatch unsafe steps, or null to run every step on the calling thread
+     */
+    void runChain(@Nullable AsyncChainPolicy policy) {
+        runChain(policy, null);
+    }
+
+    /**
+     * Performs a series of reflective operations as specified at creation
+     * <p>
+     * Chains run over many instances can pass the plan of a previous run, see {@link #getPlan()}, rather than
+     * looking it up again for every instance.
+     * <p>
+     * Between steps the chain checks whether it has used up the factory's time budget, or its thread has been
+     * interrupted, and if so stops with whatever the last step returned. Only time spent running the chain counts
+     * towards the budget, time spent waiting for the sync executor to pick up a step does not.
+     *
+     * @param policy     policy used to dispatch unsafe steps, or null to run every step on the calling thread
+     * @param sharedPlan plan to take steps from, or null to use the factory's cached plan
+     */
+    void runChain(@Nullable AsyncChainPolicy policy, @Nullable ChainPlan sharedPlan) {
+        final ChainPlan cachedPlan = sharedPlan != null ? sharedPlan
+                : factory.getCachedPlan(initialInstance.getClass(), rawInput);
+        final int handlerGeneration = typeHandler.getHandlerGeneration();
+        final long start = System.nanoTime();
+        // time spent running the chain, on this thread since sliceStart plus any earlier slices and sync steps
+        long spentNanos = 0;
+        long sliceStart = start;
+        final List<ChainPlan.Step> resolvedSteps = new ArrayList<>();
+        boolean planChanged = false;
+
         Object currentInstance = initialInstance;
         ReflectionResult result = null;
 
         Object priorInstance;
+        ChainPlan.Step step;
         Method currentMethod;
-        Object[] methodParameters;
-        int argsToSkip = 0;
-
-        for (int i = 0; i < input.size(); i++) {
-            String currentArg = input.get(i);
-            if (argsToSkip > 0) {
-                argsToSkip--;
-                continue;
-            }
+        int argsToSkip;
+        long resolveStart;
+        long resolveBytes;
+        boolean planned;
 
+        for (int i = 0; i < input.size(); i += argsToSkip + 1) {
             Objects.requireNonNull(currentInstance);
-            reflectionMap = methodMapProvider.getMethodMapFor(currentInstance.getClass());
+            final int stepIndex = resolvedSteps.size();
 
-            currentMethod = reflectionMap.getById(currentArg);
-            if (currentMethod == null) {
-                result = new ReflectionResult(ReflectionResult.Type.UNKNOWN_REFERENCE, null,
-                        "Unknown or unavailable method");
-                break;
+            if (stepIndex != 0) {
+                final long elapsed = spentNanos + System.nanoTime() - sliceStart;
+                if (timeBudget != 0 && elapsed > timeBudget) {
+                    result = new ReflectionResult(ReflectionResult.Type.TIMED_OUT, currentInstance,
+                            "Chain ran out of time after " + stepIndex + " steps (" + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms)");
+                    break;
+                }
+
+                if (Thread.currentThread().isInterrupted()) {
+                    result = new ReflectionResult(ReflectionResult.Type.TIMED_OUT, currentInstance,
+                            "Chain was cancelled after " + stepIndex + " steps");
+                    break;
+                }
             }
 
-            List<String> stringMethodArgs = ReflectionUtil.getArgsForMethod(this.input.subList(i + 1, input.size()), currentMethod);
-            argsToSkip = stringMethodArgs.size();
+            resolveStart = timings != null ? System.nanoTime() : 0;
+            resolveBytes = timings != null ? ChainTimings.getAllocatedBytes() : 0;
+            step = cachedPlan != null ? cachedPlan.getStep(stepIndex, currentInstance.getClass()) : null;
+            planned = step != null;
+            if (step == null) {
+                final MethodMap reflectionMap = methodMapProvider.getMethodMapFor(currentInstance.getClass());
+                final String currentArg = input.get(i);
 
-            // break early if there's an issue with the method arg count
-            if (stringMethodArgs.size() != currentMethod.getParameterCount()) {
-                result = new ReflectionResult(ReflectionResult.Type.ARG_MISMATCH, null,
-                        ReflectionUtil.getArgMismatchString(currentMethod), null);
-                break;
+                currentMethod = reflectionMap.getById(currentArg);
+                if (currentMethod == null) {
+                    result = new ReflectionResult(ReflectionResult.Type.UNKNOWN_REFERENCE, null,
+                            "Unknown or unavailable method");
+                    break;
+                }
+
+                List<String> stringMethodArgs = ReflectionUtil.getArgsForMethod(this.input.subList(i + 1, input.size()), currentMethod);
+
+                // break early if there's an issue with the method arg count
+                if (stringMethodArgs.size() != currentMethod.getParameterCount()) {
+                    result = new ReflectionResult(ReflectionResult.Type.ARG_MISMATCH, null,
+                            ReflectionUtil.getArgMismatchString(currentMethod), null);
+                    break;
+                }
+
+                step = new ChainPlan.Step(currentInstance.getClass(), currentMethod, reflectionMap.getHandleById(currentArg),
+                        stringMethodArgs, typeHandler.getIHandlersFor(currentMethod.getParameterTypes()));
+                planChanged = true;
             }
 
+            resolvedSteps.add(step);
+            currentMethod = step.method;
+            argsToSkip = step.args.size();
             priorInstance = currentInstance;
+            final long resolveNanos = timings != null ? System.nanoTime() - resolveStart : 0;
+            resolveBytes = timings != null ? ChainTimings.getAllocatedBytesSince(resolveBytes) : 0;
+            lastArgsNanos = lastInvokeNanos = lastStepBytes = 0;
 
             try {
-                methodParameters = typeHandler.instantiateTypes(currentMethod.getParameterTypes(), stringMethodArgs, sender);
-                currentInstance = reflect(currentInstance, currentMethod, methodParameters);
+                if (policy == null || policy.isAsyncSafe(step.receiverClass, currentMethod)) {
+                    currentInstance = invokeStep(step, currentInstance);
+                } else {
+                    final ChainPlan.Step syncStep = step;
+                    final Object receiver = currentInstance;
+                    spentNanos += System.nanoTime() - sliceStart;
+                    lastSyncNanos = 0;
+                    currentInstance = policy.callSync(() -> invokeSyncStep(syncStep, receiver));
+                    spentNanos += lastSyncNanos;
+                    sliceStart = System.nanoTime();
+                }
+            } catch (IllegalArgumentException ex) {
+                // thrown before the method body runs, when the receiver or arguments don't fit the method
+                result = new ReflectionResult(ReflectionResult.Type.ARG_MISMATCH, null,
+                        ex.getLocalizedMessage() + "\n" + ReflectionUtil.getArgMismatchString(currentMethod), ex);
+                break;
             } catch (Throwable ex) {
                 ReflectionResult.Type type = ex instanceof InputException ? ReflectionResult.Type.INPUT_ERROR : ReflectionResult.Type.UNHANDLED_EXCEPTION;
                 Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
@@ -106,11 +225,17 @@ class ReflectionChain {
 
                 result = new ReflectionResult(type, null, reason, cause);
                 break;
+            } finally {
+                if (timings != null) {
+                    final long stepBytes = resolveBytes == -1 || lastStepBytes == -1 ? -1 : resolveBytes + lastStepBytes;
+                    timings.addStep(step, planned, resolveNanos, lastArgsNanos, lastInvokeNanos, stepBytes);
+                }
             }
 
-            if (DebuggeryBase.isDebugMode()) {
+            if (logger.isDebugEnabled()) {
                 List<String> remainingArgs = input.subList(i, input.size());
-                logDebug(i, reflectionMap, priorInstance, currentInstance, currentMethod, argsToSkip, methodParameters, remainingArgs);
+                MethodMap reflectionMap = methodMapProvider.getMethodMapFor(step.receiverClass);
+                logDebug(i, reflectionMap, priorInstance, currentInstance, currentMethod, argsToSkip, lastParameters, remainingArgs);
             }
 
             if (currentMethod.getReturnType() != Void.TYPE && currentInstance == null) {
@@ -126,6 +251,13 @@ class ReflectionChain {
             }
         }
 
+        if (planChanged) {
+            this.plan = new ChainPlan(resolvedSteps, handlerGeneration);
+            factory.cachePlan(initialInstance.getClass(), rawInput, this.plan);
+        } else {
+            this.plan = cachedPlan;
+        }
+
         if (result == null) {
             // if we've made it this far without any result, we should assume that the operation was a
             // success and create a new successful result object with the currentInstance as the result
@@ -133,6 +265,8 @@ class ReflectionChain {
         }
 
         Objects.requireNonNull(result);
+        factory.recordResult(result.getType(), System.nanoTime() - start);
+        result.setTimings(timings);
         this.result = result;
     }
 
@@ -150,36 +284,160 @@ class ReflectionChain {
         return this.result;
     }
 
+    /**
+     * Gets the plan the chain ran with, including any steps resolved during the run
+     *
+     * @return plan or null if the chain failed before resolving any steps
+     */
+    @Nullable ChainPlan getPlan() {
+        return this.plan;
+    }
+
+    /**
+     * Calls {@link #invokeStep(ChainPlan.Step, Object)} and records how long it took, for steps handed to the
+     * sync executor
+     *
+     * @param step     step to run
+     * @param instance what to operate on
+     * @return resulting object instance or null if that's the correct result
+     * @throws Exception if the arguments cannot be instantiated or the call itself fails
+     */
+    private @Nullable Object invokeSyncStep(@NotNull ChainPlan.Step step, @NotNull Object instance) throws Exception {
+        final long syncStart = System.nanoTime();
+        try {
+            return invokeStep(step, instance);
+        } finally {
+            lastSyncNanos = System.nanoTime() - syncStart;
+        }
+    }
+
+    /**
+     * Instantiates the arguments for a step and calls it
+     *
+     * @param step     step to run
+     * @param instance what to operate on
+     * @return resulting object instance or null if that's the correct result
+     * @throws Exception if the arguments cannot be instantiated or the call itself fails
+     */
+    private @Nullable Object invokeStep(@NotNull ChainPlan.Step step, @NotNull Object instance) throws Exception {
+        if (timings == null) {
+            lastParameters = typeHandler.instantiateTypes(step.method.getParameterTypes(), step.inputHandlers, step.args, sender);
+            return reflect(instance, step.method, step.handle, lastParameters);
+        }
+
+        // measured here rather than by the caller so that steps handed to another thread are counted there
+        final long startBytes = ChainTimings.getAllocatedBytes();
+        final long argsStart = System.nanoTime();
+        long invokeStart = 0;
+        boolean invoked = false;
+        try {
+            lastParameters = typeHandler.instantiateTypes(step.method.getParameterTypes(), step.inputHandlers, step.args, sender);
+            invokeStart = System.nanoTime();
+            invoked = true;
+            return reflect(instance, step.method, step.handle, lastParameters);
+        } finally {
+            final long end = System.nanoTime();
+            lastArgsNanos = (invoked ? invokeStart : end) - argsStart;
+            lastInvokeNanos = invoked ? end - invokeStart : 0;
+            lastStepBytes = ChainTimings.getAllocatedBytesSince(startBytes);
+        }
+    }
+
     /**
      * Performs an individual reflective operation
+     * <p>
+     * Invokes through the given method handle when one is available, falling back to
+     * {@link Method#invoke(Object, Object...)} otherwise. Either way, a receiver or arguments that don't fit
+     * the method are reported with an {@link IllegalArgumentException}, as {@link Method#invoke(Object, Object...)} does.
      *
      * @param instance what to operate on
      * @param method   what to call
+     * @param handle   spreading handle for the method, see {@link MethodMap#getHandleById(String)}
      * @param args     parameters to pass to operation
      * @return resulting object instance or null if that's the correct result
      * @throws InvocationTargetException see {@link Method#invoke(Object, Object...)}
      * @throws IllegalAccessException    see {@link Method#invoke(Object, Object...)}
      */
-    private @Nullable Object reflect(@NotNull Object instance, @NotNull Method method, @NotNull Object[] args) throws InvocationTargetException, IllegalAccessException {
+    private @Nullable Object reflect(@NotNull Object instance, @NotNull Method method, @Nullable MethodHandle handle,
+                                     @NotNull Object[] args) throws InvocationTargetException, IllegalAccessException {
         if (args.length != method.getParameterCount()) {
             throw new IllegalArgumentException("Given argument count: " + args.length + " does not match required parameter count: " + method.getParameterCount());
         }
 
+        if (handle != null) {
+            try {
+                return (Object) handle.invokeExact(instance, args);
+            } catch (WrongMethodTypeException | ClassCastException | NullPointerException ex) {
+                // the handle's casts and unboxing fail the same way the method body can, only check which on failure
+                if (!fitsMethod(instance, method, args)) {
+                    throw new IllegalArgumentException("argument type mismatch", ex);
+                }
+
+                throw new InvocationTargetException(ex);
+            } catch (Throwable ex) {
+                // wrap the same way Method#invoke does so callers see one exception shape
+                throw new InvocationTargetException(ex);
+            }
+        }
+
         method.trySetAccessible();
         return method.invoke(instance, args);
     }
 
+    /**
+     * Gets whether {@link Method#invoke(Object, Object...)} would accept the given receiver and arguments
+     *
+     * @param instance what to operate on
+     * @param method   what to call
+     * @param args     parameters to pass to operation
+     * @return true if the receiver and every argument fit the method
+     */
+    private static boolean fitsMethod(@NotNull Object instance, @NotNull Method method, @NotNull Object[] args) {
+        if (!Modifier.isStatic(method.getModifiers()) && !method.getDeclaringClass().isInstance(instance)) {
+            return false;
+        }
+
+        final Class<?>[] paramTypes = method.getParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            if (!paramTypes[i].isPrimitive()) {
+                if (args[i] != null && !paramTypes[i].isInstance(args[i])) {
+                    return false;
+                }
+
+                continue;
+            }
+
+            if (args[i] == null) {
+                return false;
+            }
+
+            // only unboxing followed by a widening primitive conversion is allowed, which asType checks for us
+            final Class<?> argType = MethodType.methodType(args[i].getClass()).unwrap().returnType();
+            if (!argType.isPrimitive()) {
+                return false;
+            }
+
+            try {
+                MethodHandles.identity(paramTypes[i]).asType(MethodType.methodType(paramTypes[i], argType));
+            } catch (WrongMethodTypeException ex) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private void logDebug(int index, MethodMap currentMap, Object priorInstance, Object postInstance,
                           Method currentMethod, int argsToSkip, Object[] methodParams, List<String> remainingArgs) {
         logger.debug("========= CHAIN LOOP START  =========");
-        logger.debug("index: " + index);
-        logger.debug("MethodMap: " + currentMap);
-        logger.debug("Prior-Instance: " + priorInstance);
-        logger.debug("Method: " + currentMethod);
-        logger.debug("Method Params: " + Arrays.toString(methodParams));
-        logger.debug("Post-Instance: " + postInstance);
-        logger.debug("Skip Args: " + argsToSkip);
-        logger.debug("Remaining Args: " + remainingArgs.toString());
+        logger.debug("index: {}", index);
+        logger.debug("MethodMap: {}", currentMap);
+        logger.debug("Prior-Instance: {}", priorInstance);
+        logger.debug("Method: {}", currentMethod);
+        logger.debug(() -> "Method Params: " + Arrays.toString(methodParams));
+        logger.debug("Post-Instance: {}", postInstance);
+        logger.debug("Skip Args: {}", argsToSkip);
+        logger.debug("Remaining Args: {}", remainingArgs);
         logger.debug("========= CHAIN LOOP END =========");
     }
 }
@@ -21,28 +21,610 @@ import io.zachbr.debuggery.Logger;
 import io.zachbr.debuggery.reflection.MethodMapProvider;
 import io.zachbr.debuggery.reflection.types.TypeHandler;
 import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
+import io.zachbr.debuggery.util.LatencyHistogram;
 
-import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 // todo - is this going to stick around?
 public class ReflectionChainFactory {
+    private static final int MAX_CACHED_PLANS_PER_CLASS = 64;
+    private static final int BATCH_SPLIT_THRESHOLD = 256;
     final TypeHandler typeHandler;
     final MethodMapProvider methodMapProvider;
     final Logger logger;
+    private volatile long timeBudgetNanos;
+    private volatile long batchSliceNanos;
+    private volatile long batchBudgetNanos;
+    private final LongAdder[] resultCounts = new LongAdder[ReflectionResult.Type.values().length];
+    private final LatencyHistogram chainLatency = new LatencyHistogram();
+    // attached to the class each chain starts on so that the cache never keeps a class alive on its own
+    private volatile ClassValue<RootPlans> cachedPlans = newPlanCache();
+    private final Map<Class<?>, Boolean> planRoots = new WeakHashMap<>(); // guarded by itself
 
     public ReflectionChainFactory(TypeHandler handler, MethodMapProvider provider, Logger logger) {
         this.typeHandler = handler;
         this.methodMapProvider = provider;
         this.logger = logger;
+
+        for (int i = 0; i < resultCounts.length; i++) {
+            resultCounts[i] = new LongAdder();
+        }
     }
 
     public ReflectionResult runChain(String[] args, Object initialInstance, PlatformSender<?> sender) {
+        return runChain(args, initialInstance, sender, false);
+    }
+
+    /**
+     * Runs a chain on the calling thread
+     *
+     * @param args            chain input
+     * @param initialInstance instance to start the chain from
+     * @param sender          sender running the chain
+     * @param recordTimings   whether to record {@link ChainTimings} for the result
+     * @return the chain's result
+     */
+    public ReflectionResult runChain(String[] args, Object initialInstance, PlatformSender<?> sender, boolean recordTimings) {
         Objects.requireNonNull(args);
         Objects.requireNonNull(initialInstance);
 
         ReflectionChain chain = new ReflectionChain(this, args, initialInstance, sender);
+        if (recordTimings) {
+            chain.recordTimings();
+        }
+
         chain.runChain();
 
         return chain.getResult();
     }
+
+    /**
+     * Runs a chain on the policy's async executor
+     * <p>
+     * Steps the policy does not consider async safe are run on its sync executor instead.
+     *
+     * @param args            chain input
+     * @param initialInstance instance to start the chain from
+     * @param sender          sender running the chain
+     * @param policy          policy deciding which steps need the sync executor
+     * @return future completed with the chain's result
+     */
+    public CompletableFuture<ReflectionResult> runChainAsync(String[] args, Object initialInstance, PlatformSender<?> sender,
+                                                             AsyncChainPolicy policy) {
+        return runChainAsync(args, initialInstance, sender, policy, false);
+    }
+
+    /**
+     * Runs a chain on the policy's async executor
+     * <p>
+     * Steps the policy does not consider async safe are run on its sync executor instead.
+     *
+     * @param args            chain input
+     * @param initialInstance instance to start the chain from
+     * @param sender          sender running the chain
+     * @param policy          policy deciding which steps need the sync executor
+     * @param recordTimings   whether to record {@link ChainTimings} for the result
+     * @return future completed with the chain's result
+     */
+    public CompletableFuture<ReflectionResult> runChainAsync(String[] args, Object initialInstance, PlatformSender<?> sender,
+                                                             AsyncChainPolicy policy, boolean recordTimings) {
+        Objects.requireNonNull(args);
+        Objects.requireNonNull(initialInstance);
+        Objects.requireNonNull(policy);
+
+        ReflectionChain chain = new ReflectionChain(this, args, initialInstance, sender);
+        if (recordTimings) {
+            chain.recordTimings();
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            chain.runChain(policy);
+            return chain.getResult();
+        }, policy.getAsyncExecutor());
+    }
+
+    /**
+     * Sets how long a single chain may run before it is stopped between steps
+     * <p>
+     * Steps are never interrupted part way through, a chain that runs out of time ends with a
+     * {@link ReflectionResult.Type#TIMED_OUT} result holding whatever its last completed step returned.
+     * Time a chain spends waiting for an {@link AsyncChainPolicy}'s sync executor isn't counted.
+     *
+     * @param nanos time budget in nanoseconds, 0 for no limit
+     */
+    public void setTimeBudget(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Time budget cannot be negative");
+        }
+
+        this.timeBudgetNanos = nanos;
+    }
+
+    /**
+     * Gets how long a single chain may run before it is stopped between steps
+     *
+     * @return time budget in nanoseconds, 0 for no limit
+     */
+    public long getTimeBudget() {
+        return timeBudgetNanos;
+    }
+
+    /**
+     * Sets how long batches run on an executor may take, see {@link #runBatchSliced(String[], List, PlatformSender, Executor)}
+     * <p>
+     * Both limits are checked after each root, and each chain is given whatever is left of them as its own time
+     * budget, so a slow chain stops between steps rather than overrunning the slice. A chain that can't finish
+     * within a single slice ends {@link ReflectionResult.Type#TIMED_OUT}. A single slow step can still overrun both.
+     *
+     * @param sliceNanos longest a batch may run in a single task before handing the rest to another, 0 for no limit
+     * @param totalNanos longest a batch may run across all its tasks before the remaining roots are skipped, 0 for no limit
+     */
+    public void setBatchTimeBudget(long sliceNanos, long totalNanos) {
+        if (sliceNanos < 0 || totalNanos < 0) {
+            throw new IllegalArgumentException("Time budget cannot be negative");
+        }
+
+        this.batchSliceNanos = sliceNanos;
+        this.batchBudgetNanos = totalNanos;
+    }
+
+    /**
+     * Gets how long a batch may run in a single task on its executor
+     *
+     * @return slice budget in nanoseconds, 0 for no limit
+     */
+    public long getBatchSliceBudget() {
+        return batchSliceNanos;
+    }
+
+    /**
+     * Gets how long a batch may run across all its tasks on its executor
+     *
+     * @return total budget in nanoseconds, 0 for no limit
+     */
+    public long getBatchTimeBudget() {
+        return batchBudgetNanos;
+    }
+
+    /**
+     * Gets the number of chains run by this factory that ended with the given result type
+     *
+     * @param type result type
+     * @return chain count
+     */
+    public long getResultCount(@NotNull ReflectionResult.Type type) {
+        return resultCounts[type.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of chains run by this factory, including each root of a batch
+     *
+     * @return chain count
+     */
+    public long getChainCount() {
+        long total = 0;
+        for (LongAdder count : resultCounts) {
+            total += count.sum();
+        }
+
+        return total;
+    }
+
+    /**
+     * Gets how long chains run by this factory have taken
+     *
+     * @return chain times in nanoseconds
+     */
+    public @NotNull LatencyHistogram getChainLatency() {
+        return chainLatency;
+    }
+
+    /**
+     * Counts a finished chain
+     *
+     * @param type  result type it ended with
+     * @param nanos time it took
+     */
+    void recordResult(@NotNull ReflectionResult.Type type, long nanos) {
+        resultCounts[type.ordinal()].increment();
+        chainLatency.record(nanos);
+    }
+
+    /**
+     * Prepares a chain to be run many times
+     *
+     * @param args chain input
+     * @return prepared chain
+     */
+    public PreparedChain prepare(String[] args) {
+        Objects.requireNonNull(args);
+        return new PreparedChain(this, args);
+    }
+
+    /**
+     * Runs the same chain against every given root and aggregates the results
+     * <p>
+     * Methods are resolved once per root class and shared by every root of that class, the results
+     * themselves are folded into the aggregate rather than kept.
+     *
+     * @param args   chain input
+     * @param roots  instances to start the chain from, null entries are skipped
+     * @param sender sender running the chain
+     * @return aggregated results
+     */
+    public ChainAggregate runBatch(String[] args, Iterable<?> roots, @Nullable PlatformSender<?> sender) {
+        Objects.requireNonNull(args);
+        Objects.requireNonNull(roots);
+
+        final ChainAggregate aggregate = new ChainAggregate(ChainAggregate.DEFAULT_MAX_DISTINCT_VALUES);
+        runBatchInto(prepare(args), roots.iterator(), sender, null, aggregate);
+        return aggregate;
+    }
+
+    /**
+     * Runs the same chain against every given root in time limited slices on an executor and aggregates the results
+     * <p>
+     * Each slice runs roots until the batch's slice budget is used up and then hands the rest to a new task on the
+     * executor. An executor that runs each task on a later tick of the main thread spreads the batch over as many
+     * ticks as it needs. Once the batch has run for its total budget, the roots it didn't get to are counted as
+     * {@link ReflectionResult.Type#TIMED_OUT} and the future is completed with what it has. See
+     * {@link #setBatchTimeBudget(long, long)}.
+     *
+     * @param args     chain input
+     * @param roots    instances to start the chain from, null entries are skipped
+     * @param sender   sender running the chain
+     * @param executor executor to run each slice on
+     * @return future completed with the aggregated results
+     */
+    public CompletableFuture<ChainAggregate> runBatchSliced(String[] args, List<?> roots, @Nullable PlatformSender<?> sender,
+                                                            Executor executor) {
+        Objects.requireNonNull(args);
+        Objects.requireNonNull(roots);
+        Objects.requireNonNull(executor);
+
+        final SlicedBatch batch = new SlicedBatch(prepare(args), roots, 0, sender, executor,
+                new ChainAggregate(ChainAggregate.DEFAULT_MAX_DISTINCT_VALUES));
+        executor.execute(batch);
+        return batch.future;
+    }
+
+    /**
+     * Runs the same chain against every given root off the calling thread and aggregates the results
+     * <p>
+     * The first root is run on the policy's async executor to resolve the chain. If the policy considers every
+     * resolved step async safe, the remaining roots are split across the given pool and each worker aggregates its
+     * share before the partial results are merged. Any step the policy doesn't consider safe is still handed to
+     * its sync executor, so the pool is free to encounter roots whose chains resolve differently.
+     * <p>
+     * Otherwise the remaining roots are run in time limited slices on the sync executor, as with
+     * {@link #runBatchSliced(String[], List, PlatformSender, Executor)}, rather than handing each step of each chain
+     * to it separately. The caller must never block its sync executor waiting on the returned future.
+     * <p>
+     * No thread is held waiting on the rest of the batch, the async executor is only used for the first root.
+     *
+     * @param args   chain input
+     * @param roots  instances to start the chain from, null entries are skipped
+     * @param sender sender running the chain
+     * @param policy policy deciding which steps need the sync executor
+     * @param pool   pool to split thread safe batches across
+     * @return future completed with the aggregated results
+     */
+    public CompletableFuture<ChainAggregate> runBatchAsync(String[] args, List<?> roots, @Nullable PlatformSender<?> sender,
+                                                           AsyncChainPolicy policy, ForkJoinPool pool) {
+        Objects.requireNonNull(args);
+        Objects.requireNonNull(roots);
+        Objects.requireNonNull(policy);
+        Objects.requireNonNull(pool);
+
+        final ChainAggregate aggregate = new ChainAggregate(ChainAggregate.DEFAULT_MAX_DISTINCT_VALUES);
+        final PreparedChain chain = prepare(args);
+
+        // nothing waits on the rest of the batch, each part completes the future of the next
+        return CompletableFuture.supplyAsync(() -> runFirstRoot(chain, roots, sender, policy, aggregate), policy.getAsyncExecutor())
+                .thenCompose(next -> {
+                    if (next == roots.size()) {
+                        return CompletableFuture.completedFuture(aggregate);
+                    }
+
+                    final ChainPlan plan = chain.getPlan(roots.get(next - 1).getClass());
+                    if (plan == null || !isAsyncSafe(plan, policy)) {
+                        final SlicedBatch batch = new SlicedBatch(chain, roots, next, sender, policy.getSyncExecutor(), aggregate);
+                        policy.getSyncExecutor().execute(batch);
+                        return batch.future;
+                    }
+
+                    final BatchTask task = new BatchTask(chain, roots, next, roots.size(), sender, policy);
+                    return CompletableFuture.supplyAsync(task::invoke, pool).thenApply(part -> {
+                        aggregate.merge(part);
+                        return aggregate;
+                    });
+                });
+    }
+
+    /**
+     * Runs the chain against the first root of a batch, resolving its steps for the rest
+     *
+     * @param chain     chain to run
+     * @param roots     instances to start the chain from, null entries are skipped
+     * @param sender    sender running the chain
+     * @param policy    policy used to dispatch unsafe steps
+     * @param aggregate aggregate to add the result to
+     * @return index of the root after the one run, or the number of roots if there was none to run
+     */
+    private int runFirstRoot(PreparedChain chain, List<?> roots, @Nullable PlatformSender<?> sender, AsyncChainPolicy policy,
+                             ChainAggregate aggregate) {
+        int next = 0;
+        while (next < roots.size() && roots.get(next) == null) {
+            next++;
+        }
+
+        if (next == roots.size()) {
+            return next;
+        }
+
+        aggregate.add(chain.run(roots.get(next), sender, policy));
+        return next + 1;
+    }
+
+    private static boolean isAsyncSafe(ChainPlan plan, AsyncChainPolicy policy) {
+        for (ChainPlan.Step step : plan.getSteps()) {
+            if (!policy.isAsyncSafe(step.receiverClass, step.method)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs a chain against every root from an iterator and folds the results into an aggregate
+     *
+     * @param chain     chain to run
+     * @param roots     instances to start the chain from, null entries are skipped
+     * @param sender    sender running the chain
+     * @param policy    policy used to dispatch unsafe steps, or null to run every step on the calling thread
+     * @param aggregate aggregate to add results to
+     */
+    void runBatchInto(PreparedChain chain, Iterator<?> roots, @Nullable PlatformSender<?> sender, @Nullable AsyncChainPolicy policy,
+                      ChainAggregate aggregate) {
+        while (roots.hasNext()) {
+            final Object root = roots.next();
+            if (root != null) {
+                aggregate.add(chain.run(root, sender, policy));
+            }
+        }
+    }
+
+    /**
+     * Runs batch roots one after another on an executor, handing the rest to a new task whenever a slice's time is up
+     */
+    private final class SlicedBatch implements Runnable {
+        private final CompletableFuture<ChainAggregate> future = new CompletableFuture<>();
+        private final PreparedChain chain;
+        private final List<?> roots;
+        private final @Nullable PlatformSender<?> sender;
+        private final Executor executor;
+        private final ChainAggregate aggregate;
+        private final long sliceBudget = batchSliceNanos;
+        private final long totalBudget = batchBudgetNanos;
+        private int next;
+        private long spentNanos;
+
+        private SlicedBatch(PreparedChain chain, List<?> roots, int start, @Nullable PlatformSender<?> sender, Executor executor,
+                            ChainAggregate aggregate) {
+            this.chain = chain;
+            this.roots = roots;
+            this.next = start;
+            this.sender = sender;
+            this.executor = executor;
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final long sliceStart = System.nanoTime();
+                while (next < roots.size()) {
+                    final Object root = roots.get(next++);
+                    if (root != null) {
+                        // the chain stops between steps once it would overrun the slice or the batch
+                        final long sliceNanos = System.nanoTime() - sliceStart;
+                        long chainBudget = getTimeBudget();
+                        if (sliceBudget != 0) {
+                            chainBudget = minBudget(chainBudget, sliceBudget - sliceNanos);
+                        }
+
+                        if (totalBudget != 0) {
+                            chainBudget = minBudget(chainBudget, totalBudget - spentNanos - sliceNanos);
+                        }
+
+                        aggregate.add(chain.run(root, sender, null, chainBudget));
+                    }
+
+                    final long sliceNanos = System.nanoTime() - sliceStart;
+                    if (totalBudget != 0 && spentNanos + sliceNanos > totalBudget) {
+                        skipRemaining(spentNanos + sliceNanos);
+                        break;
+                    }
+
+                    if (sliceBudget != 0 && sliceNanos > sliceBudget && next < roots.size()) {
+                        spentNanos += sliceNanos;
+                        executor.execute(this);
+                        return;
+                    }
+                }
+
+                future.complete(aggregate);
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+
+        private long minBudget(long budget, long remaining) {
+            // 0 means no limit to a chain, an exhausted budget still lets it take its first step
+            return budget == 0 ? Math.max(1, remaining) : Math.max(1, Math.min(budget, remaining));
+        }
+
+        private void skipRemaining(long spentNanos) {
+            long skipped = 0;
+            for (int i = next; i < roots.size(); i++) {
+                if (roots.get(i) != null) {
+                    skipped++;
+                }
+            }
+
+            aggregate.addTimedOut(skipped, "Batch ran out of time after " + TimeUnit.NANOSECONDS.toMillis(spentNanos)
+                    + "ms, the remaining roots were skipped");
+        }
+    }
+
+    /**
+     * Splits a range of batch roots in half until it is small enough to run directly
+     */
+    private final class BatchTask extends RecursiveTask<ChainAggregate> {
+        private static final long serialVersionUID = 1L;
+        private final PreparedChain chain;
+        private final List<?> roots;
+        private final int start;
+        private final int end;
+        private final @Nullable PlatformSender<?> sender;
+        private final AsyncChainPolicy policy;
+
+        private BatchTask(PreparedChain chain, List<?> roots, int start, int end, @Nullable PlatformSender<?> sender,
+                          AsyncChainPolicy policy) {
+            this.chain = chain;
+            this.roots = roots;
+            this.start = start;
+            this.end = end;
+            this.sender = sender;
+            this.policy = policy;
+        }
+
+        @Override
+        protected ChainAggregate compute() {
+            if (end - start <= BATCH_SPLIT_THRESHOLD) {
+                // resolved steps are immutable, each task just needs its own copy of the chain
+                final ChainAggregate aggregate = new ChainAggregate(ChainAggregate.DEFAULT_MAX_DISTINCT_VALUES);
+                runBatchInto(chain.copy(), roots.subList(start, end).iterator(), sender, policy, aggregate);
+                return aggregate;
+            }
+
+            final int middle = (start + end) >>> 1;
+            final BatchTask left = new BatchTask(chain, roots, start, middle, sender, policy);
+            left.fork();
+
+            final ChainAggregate aggregate = new BatchTask(chain, roots, middle, end, sender, policy).compute();
+            aggregate.merge(left.join());
+            return aggregate;
+        }
+    }
+
+    /**
+     * Clears all cached chain plans, forcing future chains to be resolved again
+     */
+    public void clearPlanCache() {
+        synchronized (planRoots) {
+            cachedPlans = newPlanCache();
+            planRoots.clear();
+        }
+    }
+
+    /**
+     * Gets the cached plan for the given chain if it is still valid
+     *
+     * @param rootClass runtime class the chain starts on
+     * @param input     chain input
+     * @return cached plan or null
+     */
+    @Nullable ChainPlan getCachedPlan(@NotNull Class<?> rootClass, @NotNull String[] input) {
+        final RootPlans plans = cachedPlans.get(rootClass);
+        ChainPlan plan;
+        synchronized (plans) {
+            plan = plans.get(new ChainPlan.Key(input));
+        }
+
+        if (plan != null && plan.getHandlerGeneration() != typeHandler.getHandlerGeneration()) {
+            return null;
+        }
+
+        return plan;
+    }
+
+    /**
+     * Caches a plan for future chains with the same root class and input
+     * <p>
+     * Plans that reference classes the root class can't see, such as another plugin's classes reached from a
+     * server class, are not cached. Holding them would keep their classloader alive as long as the root class.
+     *
+     * @param rootClass runtime class the chain starts on
+     * @param input     chain input
+     * @param plan      plan to cache
+     */
+    void cachePlan(@NotNull Class<?> rootClass, @NotNull String[] input, @NotNull ChainPlan plan) {
+        if (!plan.isVisibleFrom(rootClass.getClassLoader())) {
+            return;
+        }
+
+        final RootPlans plans = cachedPlans.get(rootClass);
+        synchronized (plans) {
+            plans.put(new ChainPlan.Key(input), plan);
+        }
+
+        synchronized (planRoots) {
+            planRoots.put(rootClass, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Gets the number of plans currently cached
+     *
+     * @return cached plan count
+     */
+    int getCachedPlanCount() {
+        int count = 0;
+        synchronized (planRoots) {
+            for (Class<?> rootClass : planRoots.keySet()) {
+                final RootPlans plans = cachedPlans.get(rootClass);
+                synchronized (plans) {
+                    count += plans.size();
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static ClassValue<RootPlans> newPlanCache() {
+        return new ClassValue<>() {
+            @Override
+            protected RootPlans computeValue(Class<?> type) {
+                return new RootPlans();
+            }
+        };
+    }
+
+    /**
+     * Plans for chains starting on a single class, access ordered and guarded by itself
+     */
+    private static final class RootPlans extends LinkedHashMap<ChainPlan.Key, ChainPlan> {
+        private static final long serialVersionUID = 1L;
+
+        RootPlans() {
+            super(16, 0.75F, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChainPlan.Key, ChainPlan> eldest) {
+            return size() > MAX_CACHED_PLANS_PER_CLASS;
+        }
+    }
 }
@@ -30,6 +30,7 @@ public class ReflectionResult {
     private final String reason;
     private final Object endingInstance;
     private final Throwable exception;
+    private @Nullable ChainTimings timings;
 
     ReflectionResult(@NotNull Type type, @Nullable Object endingInstance) {
         this(type, endingInstance, null);
@@ -96,6 +97,21 @@ public class ReflectionResult {
         return this.exception;
     }
 
+    /**
+     * Gets the timings recorded while producing this result
+     * <p>
+     * Timings are only recorded when asked for, they are not part of the result's equality.
+     *
+     * @return timings or null if none were recorded
+     */
+    public @Nullable ChainTimings getTimings() {
+        return this.timings;
+    }
+
+    void setTimings(@Nullable ChainTimings timings) {
+        this.timings = timings;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -144,6 +160,11 @@ public class ReflectionResult {
         /**
          * The number of arguments given do not match the requested method requirements
          */
-        ARG_MISMATCH
+        ARG_MISMATCH,
+        /**
+         * The reflective operation ran out of time or was cancelled before finishing, the ending instance is the
+         * result of the last step that did complete
+         */
+        TIMED_OUT
     }
 }
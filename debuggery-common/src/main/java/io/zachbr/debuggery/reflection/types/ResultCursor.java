@@ -0,0 +1,176 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.types;
+
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * A paged view over a large array, collection, or map result
+ * <p>
+ * Nothing is formatted up front, each page only formats the elements in its own window.
+ */
+public final class ResultCursor {
+    private final TypeHandler typeHandler;
+    private final Object result;
+    private final int pageSize;
+    private final int elementCount;
+    // only used for collections without random access and maps, copied on first use
+    private Object[] snapshot;
+
+    /**
+     * Creates a new cursor over the given result
+     *
+     * @param typeHandler handler used to format each element
+     * @param result      array, collection, or map to page through
+     * @param pageSize    number of elements per page
+     * @throws IllegalArgumentException if the result cannot be paged, see {@link #isPageable(Object)}
+     */
+    public ResultCursor(@NotNull TypeHandler typeHandler, @NotNull Object result, int pageSize) {
+        Objects.requireNonNull(typeHandler);
+        Objects.requireNonNull(result);
+
+        if (!isPageable(result)) {
+            throw new IllegalArgumentException("Cannot page through instance of " + result.getClass());
+        }
+
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        this.typeHandler = typeHandler;
+        this.result = result;
+        this.pageSize = pageSize;
+
+        if (result.getClass().isArray()) {
+            this.elementCount = Array.getLength(result);
+        } else if (result instanceof Collection) {
+            this.elementCount = ((Collection<?>) result).size();
+        } else {
+            this.elementCount = ((Map<?, ?>) result).size();
+        }
+    }
+
+    /**
+     * Gets whether a cursor can be made for the given instance
+     *
+     * @param object instance to check
+     * @return true for arrays, collections, and maps
+     */
+    public static boolean isPageable(@Nullable Object object) {
+        return object != null && (object.getClass().isArray() || object instanceof Collection || object instanceof Map);
+    }
+
+    /**
+     * Gets the number of elements in the result when the cursor was made
+     *
+     * @return element count
+     */
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Gets the number of pages in this cursor, there is always at least one
+     *
+     * @return page count
+     */
+    public int getPageCount() {
+        return Math.max(1, (elementCount + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Formats a single page of the result
+     * <p>
+     * Each element is put on its own line, prefixed by its index.
+     *
+     * @param page   page number, starting at 1
+     * @param budget limits on how much output may be produced
+     * @return formatted page
+     * @throws IllegalArgumentException if the page does not exist
+     */
+    public synchronized @NotNull String formatPage(int page, @NotNull OutputBudget budget) {
+        Objects.requireNonNull(budget);
+
+        if (page < 1 || page > getPageCount()) {
+            throw new IllegalArgumentException("Page " + page + " does not exist, there are " + getPageCount() + " pages");
+        }
+
+        final int start = (page - 1) * pageSize;
+        final int end = Math.min(start + pageSize, elementCount);
+        final StringBuilder out = new StringBuilder();
+        out.append("Page ").append(page).append('/').append(getPageCount())
+                .append(" (").append(elementCount).append(" elements)");
+
+        try {
+            for (int i = start; i < end; i++) {
+                if (!budget.tryConsumeElement()) {
+                    budget.appendStructure(out, '\n');
+                    budget.appendTruncationMarker(out, end - i);
+                    break;
+                }
+
+                budget.appendStructure(out, '\n');
+                budget.append(out, "[" + i + "] ");
+                appendElement(i, out, budget);
+            }
+        } catch (IOException ex) {
+            throw new AssertionError("StringBuilder does not throw", ex);
+        }
+
+        return out.toString();
+    }
+
+    private void appendElement(int index, StringBuilder out, OutputBudget budget) throws IOException {
+        if (result.getClass().isArray()) {
+            typeHandler.appendOutputFor(Array.get(result, index), out, budget);
+        } else if (result instanceof List && result instanceof RandomAccess) {
+            // the list may have shrunk since the cursor was made
+            List<?> list = (List<?>) result;
+            typeHandler.appendOutputFor(index < list.size() ? list.get(index) : null, out, budget);
+        } else {
+            Object element = getSnapshot()[index];
+            if (element instanceof Map.Entry) {
+                // same shape as the map output handler
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) element;
+                budget.append(out, '[');
+                typeHandler.appendOutputFor(entry.getKey(), out, budget);
+                budget.append(out, ", ");
+                typeHandler.appendOutputFor(entry.getValue(), out, budget);
+                budget.append(out, ']');
+            } else {
+                typeHandler.appendOutputFor(element, out, budget);
+            }
+        }
+    }
+
+    private Object[] getSnapshot() {
+        if (snapshot == null) {
+            Object[] copy = result instanceof Map ? ((Map<?, ?>) result).entrySet().toArray() : ((Collection<?>) result).toArray();
+            // the result may have changed since the cursor was made, keep indices in range
+            snapshot = Arrays.copyOf(copy, elementCount);
+        }
+
+        return snapshot;
+    }
+}
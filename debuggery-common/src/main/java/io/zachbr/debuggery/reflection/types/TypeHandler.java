@@ -20,10 +20,13 @@ package io.zachbr.debuggery.reflection.types;
 import io.zachbr.debuggery.Logger;
 import io.zachbr.debuggery.reflection.types.handlers.base.*;
 import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
+import io.zachbr.debuggery.util.LatencyHistogram;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Manages all type handling
@@ -40,6 +43,14 @@ public final class TypeHandler {
     private final Set<IPolymorphicHandler> polymorphicHandlers = new LinkedHashSet<>();
     // output handlers
     private final Set<OHandler> outputHandlers = new LinkedHashSet<>();
+    // bumped whenever the registered handlers change
+    private volatile int handlerGeneration = 0;
+    // memoized lookups, including misses, replaced wholesale whenever the registered handlers change
+    private volatile ClassValue<Optional<IHandler>> resolvedInputHandlers = newResolvedInputHandlers();
+    private volatile ClassValue<Optional<OHandler>> resolvedOutputHandlers = newResolvedOutputHandlers();
+    private final LongAdder handlerLookups = new LongAdder();
+    private final LongAdder handlerResolutions = new LongAdder();
+    private final LatencyHistogram formatLatency = new LatencyHistogram();
 
     public TypeHandler(Logger logger) {
         this.logger = logger;
@@ -69,6 +80,70 @@ public final class TypeHandler {
         }
     }
 
+    /**
+     * Gets the formatted "friendly" {@link String} output for the given instance of
+     * an object, staying within the given {@link OutputBudget}.
+     *
+     * @param object instance to get output for
+     * @param budget limits on how much output may be produced
+     * @return String output or null
+     */
+    public @Nullable String getOutputFor(@Nullable Object object, @NotNull OutputBudget budget) {
+        Objects.requireNonNull(budget);
+
+        if (object == null) {
+            return null;
+        }
+
+        final long start = System.nanoTime();
+        final StringBuilder out = new StringBuilder();
+        final OHandler handler = getOHandlerForClass(object.getClass());
+        try {
+            if (handler instanceof OStreamingHandler) {
+                ((OStreamingHandler) handler).appendFormattedOutput(object, out, budget);
+            } else {
+                final String formatted = handler != null ? handler.getFormattedOutput(object) : String.valueOf(object);
+                if (formatted == null) {
+                    return null;
+                }
+
+                budget.append(out, formatted);
+            }
+        } catch (IOException ex) {
+            throw new AssertionError("StringBuilder does not throw", ex);
+        } finally {
+            formatLatency.record(System.nanoTime() - start);
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Writes the formatted "friendly" output for the given instance of an object,
+     * staying within the given {@link OutputBudget}.
+     * <p>
+     * Unlike {@link #getOutputFor(Object)}, null instances are written as "null".
+     *
+     * @param object instance to write output for
+     * @param out    where to write the output
+     * @param budget limits on how much output may be produced
+     * @throws IOException if writing to the output fails
+     */
+    public void appendOutputFor(@Nullable Object object, @NotNull Appendable out, @NotNull OutputBudget budget) throws IOException {
+        if (object == null) {
+            budget.append(out, "null");
+            return;
+        }
+
+        final OHandler handler = getOHandlerForClass(object.getClass());
+        if (handler instanceof OStreamingHandler) {
+            ((OStreamingHandler) handler).appendFormattedOutput(object, out, budget);
+        } else {
+            final String formatted = handler != null ? handler.getFormattedOutput(object) : String.valueOf(object);
+            budget.append(out, String.valueOf(formatted));
+        }
+    }
+
     /**
      * Creates new instances of the requested class types using the provided input
      *
@@ -97,21 +172,104 @@ public final class TypeHandler {
         List<Object> outputObjects = new ArrayList<>();
 
         for (int i = 0; i < input.size(); i++) {
-            outputObjects.add(instantiateObjectFor(classes[i], input.get(i), sender));
+            outputObjects.add(instantiateObjectFor(classes[i], getIHandlerForClass(classes[i]), input.get(i), sender));
         }
 
         return outputObjects.toArray();
     }
 
     /**
-     * Creates new instances of the requested class types using the provided input
+     * Creates new instances of the requested class types using the provided input and pre-resolved handlers
+     * <p>
+     * Handlers are expected to come from {@link #getIHandlersFor(Class[])} and are used as-is, no lookups
+     * are performed.
      *
-     * @param clazz  {@link Class} type to be instantiated
-     * @param input  The input to be used in the instantiation of the new instances
+     * @param classes  {@link Class} types to be instantiated
+     * @param handlers {@link IHandler}s to instantiate each type with, entries may be null
+     * @param input    The input to be used in the instantiation of the new instances
+     * @param sender   The sender instance to be passed along to input handlers
+     * @return {@link Object} array of the requested types, instantiated and ready for use
+     * @throws InputException when there's an issue instantiating the requested types
+     */
+    public @NotNull Object[] instantiateTypes(Class<?>[] classes, IHandler[] handlers, List<String> input, @Nullable PlatformSender<?> sender) throws InputException {
+        Objects.requireNonNull(classes);
+        Objects.requireNonNull(handlers);
+        Objects.requireNonNull(input);
+
+        Object[] outputObjects = new Object[input.size()];
+        for (int i = 0; i < outputObjects.length; i++) {
+            outputObjects[i] = instantiateObjectFor(classes[i], handlers[i], input.get(i), sender);
+        }
+
+        return outputObjects;
+    }
+
+    /**
+     * Resolves the input handlers needed to instantiate each of the given class types
+     *
+     * @param classes {@link Class} types to get handlers for
+     * @return handlers in the same order as the given classes, entries are null where no handler exists
+     */
+    public @NotNull IHandler[] getIHandlersFor(Class<?>[] classes) {
+        Objects.requireNonNull(classes);
+
+        IHandler[] handlers = new IHandler[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            handlers[i] = getIHandlerForClass(classes[i]);
+        }
+
+        return handlers;
+    }
+
+    /**
+     * Gets the current handler generation
+     * <p>
+     * This changes every time a handler is registered or removed, anything holding on to resolved handlers
+     * can use it to detect that they may be out of date.
+     *
+     * @return handler generation
+     */
+    public int getHandlerGeneration() {
+        return this.handlerGeneration;
+    }
+
+    /**
+     * Gets the number of times a handler has been looked up for a class
+     *
+     * @return lookup count
+     */
+    public long getHandlerLookupCount() {
+        return handlerLookups.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to search the registered handlers rather than use a remembered result
+     *
+     * @return resolution count
+     */
+    public long getHandlerResolutionCount() {
+        return handlerResolutions.sum();
+    }
+
+    /**
+     * Gets how long budgeted output, see {@link #getOutputFor(Object, OutputBudget)}, has taken to format
+     *
+     * @return formatting times in nanoseconds
+     */
+    public @NotNull LatencyHistogram getFormatLatency() {
+        return formatLatency;
+    }
+
+    /**
+     * Creates a new instance of the requested class type using the provided input and handler
+     *
+     * @param clazz   {@link Class} type to be instantiated
+     * @param handler {@link IHandler} to instantiate with or null if none exists
+     * @param input   The input to be used in the instantiation of the new instances
      * @return An instance of the requested class or null
      * @throws InputException when there's an issue instantiating the requested type
      */
-    private @Nullable Object instantiateObjectFor(Class<?> clazz, String input, @Nullable PlatformSender<?> sender) throws InputException {
+    private @Nullable Object instantiateObjectFor(Class<?> clazz, @Nullable IHandler handler, String input, @Nullable PlatformSender<?> sender) throws InputException {
         Objects.requireNonNull(clazz);
         Objects.requireNonNull(input);
 
@@ -122,8 +280,6 @@ public final class TypeHandler {
             return null;
         }
 
-        // otherwise, lookup a handler and use it to instantiate an object
-        IHandler handler = getIHandlerForClass(clazz);
         if (handler != null) {
             try {
                 out = handler.instantiateInstance(input, clazz, sender);
@@ -147,7 +303,7 @@ public final class TypeHandler {
     public boolean registerHandler(Handler handler) {
         Objects.requireNonNull(handler);
 
-        logger.debug("-- Attempting to register handler: " + handler + " for class: " + handler.getRelevantClass().getName());
+        logger.debug("-- Attempting to register handler: {} for class: {}", handler, handler.getRelevantClass().getName());
 
         if (handler instanceof IHandler) {
             return registerInputHandler((IHandler) handler);
@@ -169,17 +325,18 @@ public final class TypeHandler {
         // do NOT factor polymorphic handlers into this lookup, allow them to be overridden with specific implementations
         final IHandler existingHandler = getIHandlerForClass(handlerRelevantClass, false);
         if (existingHandler != null) {
-            logger.debug("!! Cannot register " + handler + ", conflicts with " + existingHandler);
+            logger.debug("!! Cannot register {}, conflicts with {}", handler, existingHandler);
             return false;
         } else {
             inputHandlers.put(handlerRelevantClass, handler);
-            logger.debug("Added handler " + handler + " to Input Handlers");
+            onHandlersChanged();
+            logger.debug("Added handler {} to Input Handlers", handler);
 
             // if this handler is polymorphic, add it to that collection as well
             // we MUST keep these in sync with one another
             if (handler instanceof IPolymorphicHandler) {
                 polymorphicHandlers.add((IPolymorphicHandler) handler);
-                logger.debug("-- -- Handler " + handler + " registered as polymorphic");
+                logger.debug("-- -- Handler {} registered as polymorphic", handler);
             }
 
             return true;
@@ -196,16 +353,38 @@ public final class TypeHandler {
         // first, make sure this handler isn't already registered
         OHandler existingHandler = getOHandlerForClass(handler.getRelevantClass());
         if (existingHandler != null) {
-            logger.debug("!! Cannot register " + handler + ", conflicts with " + existingHandler);
+            logger.debug("!! Cannot register {}, conflicts with {}", handler, existingHandler);
             return false;
         } else {
             outputHandlers.add(handler);
-            logger.debug("Added handler " + handler + " to Output Handlers");
+            onHandlersChanged();
+            logger.debug("Added handler {} to Output Handlers", handler);
 
             return true;
         }
     }
 
+    /**
+     * Forgets which handler was resolved for each class
+     * <p>
+     * Resolved handlers are attached to the classes they were resolved for, including JDK and server classes
+     * that outlive the plugin. Handlers reference this type handler, and with it the cache they were stored in,
+     * so the entries are never dropped while that cache is in use. Platforms must call this when disabling
+     * to let the plugin's classes be unloaded.
+     */
+    public void clearResolvedHandlers() {
+        resolvedInputHandlers = newResolvedInputHandlers();
+        resolvedOutputHandlers = newResolvedOutputHandlers();
+    }
+
+    /**
+     * Invalidates anything derived from the currently registered handlers
+     */
+    private void onHandlersChanged() {
+        handlerGeneration++;
+        clearResolvedHandlers();
+    }
+
     /**
      * Removes a handler from the system
      *
@@ -215,7 +394,7 @@ public final class TypeHandler {
     boolean removeHandler(@NotNull Handler handler) {
         Objects.requireNonNull(handler);
 
-        logger.debug("Attempting to remove handler: " + handler);
+        logger.debug("Attempting to remove handler: {}", handler);
 
         if (handler instanceof IHandler) {
             return removeInputHandler((IHandler) handler);
@@ -232,13 +411,13 @@ public final class TypeHandler {
      */
     boolean removeInputHandlerFor(@NotNull Class<?> clazz) {
         Objects.requireNonNull(clazz);
-        logger.debug("Attempting to remove handler for class: " + clazz + " from Input Handlers.");
+        logger.debug("Attempting to remove handler for class: {} from Input Handlers.", clazz);
 
         IHandler handler = getIHandlerForClass(clazz);
         if (handler != null) {
             return removeHandler(handler);
         } else {
-            logger.debug(" Cannot remove handler for class we cannot find: " + clazz);
+            logger.debug(" Cannot remove handler for class we cannot find: {}", clazz);
             return false;
         }
     }
@@ -251,13 +430,13 @@ public final class TypeHandler {
      */
     boolean removeOutputHandlerFor(@NotNull Class<?> clazz) {
         Objects.requireNonNull(clazz);
-        logger.debug("Attempting to remove handler for class: " + clazz + " from Output Handlers.");
+        logger.debug("Attempting to remove handler for class: {} from Output Handlers.", clazz);
 
         OHandler handler = getOHandlerForClass(clazz);
         if (handler != null) {
             return removeHandler(handler);
         } else {
-            logger.debug(" Cannot remove handler for class we cannot find: " + clazz);
+            logger.debug(" Cannot remove handler for class we cannot find: {}", clazz);
             return false;
         }
     }
@@ -275,13 +454,14 @@ public final class TypeHandler {
             logger.debug("Input Handler doesn't appear to be registered, was not removed");
             return false;
         } else {
-            logger.debug("Removed handler " + handler + " from Input Handlers");
+            onHandlersChanged();
+            logger.debug("Removed handler {} from Input Handlers", handler);
 
             // if we removed earlier and this is polymorphic, remove it from that collection
             // we MUST keep these in sync with one another
             if (handler instanceof IPolymorphicHandler) {
                 polymorphicHandlers.remove(handler);
-                logger.debug("Removed handler " + handler + " from polymorphic map");
+                logger.debug("Removed handler {} from polymorphic map", handler);
             }
 
             return true;
@@ -301,7 +481,8 @@ public final class TypeHandler {
             logger.debug("Handler doesn't appear to be registered, was not removed");
             return false;
         } else {
-            logger.debug("Removed handler " + handler + " from Output Handlers");
+            onHandlersChanged();
+            logger.debug("Removed handler {} from Output Handlers", handler);
             return true;
         }
     }
@@ -310,12 +491,16 @@ public final class TypeHandler {
      * Searches all handlers looking for the relevant handler for the given {@link Class}.
      * <p>
      * This is obliged to check for explicit handlers first before then looking through polymorphic handlers.
+     * Results are remembered per class until the registered handlers change.
      *
      * @param clazz {@link Class} type to look for a handler for
      * @return Relevant handler or null if none could be found
      */
     public @Nullable IHandler getIHandlerForClass(Class<?> clazz) {
-        return getIHandlerForClass(clazz, true);
+        Objects.requireNonNull(clazz);
+
+        handlerLookups.increment();
+        return resolvedInputHandlers.get(clazz).orElse(null);
     }
 
     private @Nullable IHandler getIHandlerForClass(Class<?> clazz, boolean usePolymorphic) {
@@ -324,13 +509,13 @@ public final class TypeHandler {
         // first check for an explicit input handler to use for this type
         IHandler handler = inputHandlers.get(clazz);
         if (handler != null) {
-            logger.debug("Found input handler " + handler + " for " + clazz);
+            logger.debug("Found input handler {} for {}", handler, clazz);
         } else if (usePolymorphic) {
             // otherwise fall back to a polymorphic handler lookup
-            logger.debug("Could not find any specific input handler for " + clazz + ", using polymorphic lookup...");
+            logger.debug("Could not find any specific input handler for {}, using polymorphic lookup...", clazz);
             handler = getGenericPolymorphicForFrom(clazz, polymorphicHandlers, "Input Handlers");
         }  else {
-            logger.debug("Could not find any specific input handler for " + clazz + ", but not using polymorphic lookup.");
+            logger.debug("Could not find any specific input handler for {}, but not using polymorphic lookup.", clazz);
         }
 
         return handler;
@@ -338,6 +523,8 @@ public final class TypeHandler {
 
     /**
      * Gets the relevant {@link OHandler} for the given {@link Class}
+     * <p>
+     * Results are remembered per class until the registered handlers change.
      *
      * @param clazz {@link} Class to search with
      * @return relevant output handler or null if none could be found
@@ -345,7 +532,28 @@ public final class TypeHandler {
     private @Nullable OHandler getOHandlerForClass(Class<?> clazz) {
         Objects.requireNonNull(clazz);
 
-        return getGenericPolymorphicForFrom(clazz, outputHandlers, "Output Handlers");
+        handlerLookups.increment();
+        return resolvedOutputHandlers.get(clazz).orElse(null);
+    }
+
+    private ClassValue<Optional<IHandler>> newResolvedInputHandlers() {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<IHandler> computeValue(Class<?> type) {
+                handlerResolutions.increment();
+                return Optional.ofNullable(getIHandlerForClass(type, true));
+            }
+        };
+    }
+
+    private ClassValue<Optional<OHandler>> newResolvedOutputHandlers() {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<OHandler> computeValue(Class<?> type) {
+                handlerResolutions.increment();
+                return Optional.ofNullable(getGenericPolymorphicForFrom(type, outputHandlers, "Output Handlers"));
+            }
+        };
     }
 
     /**
@@ -362,15 +570,15 @@ public final class TypeHandler {
         Objects.requireNonNull(clazz);
         Objects.requireNonNull(toSearch);
 
-        final String debugMsg = debugName == null ? toSearch.toString() : debugName;
+        final Object debugMsg = debugName == null ? toSearch : debugName;
         for (T handler : toSearch) {
             if (handler.getRelevantClass().isAssignableFrom(clazz)) {
-                logger.debug("Found existing polymorphic handler " + handler + " for " + clazz + " in " + debugMsg);
+                logger.debug("Found existing polymorphic handler {} for {} in {}", handler, clazz, debugMsg);
                 return handler;
             }
         }
 
-        logger.debug("Unable to find existing polymorphic handler for " + clazz + " in " + debugMsg);
+        logger.debug("Unable to find existing polymorphic handler for {} in {}", clazz, debugMsg);
         return null;
     }
 
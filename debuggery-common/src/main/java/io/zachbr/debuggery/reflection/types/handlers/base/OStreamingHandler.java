@@ -0,0 +1,51 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.types.handlers.base;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * An {@link OHandler} that can write its output directly into an {@link Appendable},
+ * staying within an {@link OutputBudget}
+ */
+public interface OStreamingHandler extends OHandler {
+
+    /**
+     * Writes formatted information from the given object instance
+     *
+     * @param object instance to get information from
+     * @param out    where to write the output
+     * @param budget limits on how much may be written
+     * @throws IOException if writing to the output fails
+     */
+    void appendFormattedOutput(Object object, Appendable out, OutputBudget budget) throws IOException;
+
+    @Override
+    default @Nullable String getFormattedOutput(Object object) {
+        StringBuilder out = new StringBuilder();
+        try {
+            appendFormattedOutput(object, out, OutputBudget.unbounded());
+        } catch (IOException ex) {
+            throw new AssertionError("StringBuilder does not throw", ex);
+        }
+
+        return out.toString();
+    }
+}
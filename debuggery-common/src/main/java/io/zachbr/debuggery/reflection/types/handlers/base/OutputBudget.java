@@ -0,0 +1,202 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.types.handlers.base;
+
+import java.io.IOException;
+
+/**
+ * Limits how much output a single formatting operation may produce
+ * <p>
+ * A budget is mutable and shared by everything written as part of one operation, nested
+ * containers included. Once the character limit is hit, further writes are dropped and
+ * containers should stop and report how many elements they skipped.
+ * <p>
+ * Text cut off by the character limit ends with "...", containers that stop early end with
+ * a "... N more" marker. Neither counts against the budget.
+ * <p>
+ * A budget can also be given a time limit, checked each time a container element is claimed.
+ * Once it passes, containers stop the same way they do when out of elements.
+ */
+public final class OutputBudget {
+    private final int maxChars;
+    private final int maxElements;
+    private int chars;
+    private int elements;
+    private boolean truncated;
+    private boolean timeLimited;
+    private long deadline;
+    private boolean timedOut;
+    // whether the last thing written was the "..." left by a cut
+    private boolean endsWithCut;
+
+    /**
+     * Creates a new budget
+     *
+     * @param maxChars    maximum number of characters that may be written
+     * @param maxElements maximum number of container elements that may be written
+     */
+    public OutputBudget(int maxChars, int maxElements) {
+        if (maxChars < 0 || maxElements < 0) {
+            throw new IllegalArgumentException("Budget cannot be negative");
+        }
+
+        this.maxChars = maxChars;
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Creates a budget with no effective limits
+     *
+     * @return new unbounded budget
+     */
+    public static OutputBudget unbounded() {
+        return new OutputBudget(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Limits how long output may keep being produced, starting now
+     *
+     * @param nanos time limit in nanoseconds
+     * @return this budget
+     */
+    public OutputBudget withTimeLimit(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative");
+        }
+
+        this.timeLimited = true;
+        this.deadline = System.nanoTime() + nanos;
+        return this;
+    }
+
+    /**
+     * Writes as much of the given text as the budget allows
+     * <p>
+     * If the text has to be cut off, "..." is written after it.
+     *
+     * @param out  where to write
+     * @param text text to write
+     * @throws IOException see {@link Appendable#append(CharSequence)}
+     */
+    public void append(Appendable out, CharSequence text) throws IOException {
+        if (truncated) {
+            return;
+        }
+
+        final int remaining = maxChars - chars;
+        if (text.length() <= remaining) {
+            out.append(text);
+            chars += text.length();
+        } else {
+            out.append(text, 0, remaining).append("...");
+            chars = maxChars;
+            truncated = true;
+            endsWithCut = true;
+        }
+    }
+
+    /**
+     * Writes a single character if the budget allows
+     * <p>
+     * If there is no room left, "..." is written instead.
+     *
+     * @param out where to write
+     * @param c   character to write
+     * @throws IOException see {@link Appendable#append(char)}
+     */
+    public void append(Appendable out, char c) throws IOException {
+        if (truncated) {
+            return;
+        }
+
+        if (chars < maxChars) {
+            out.append(c);
+            chars++;
+        } else {
+            out.append("...");
+            truncated = true;
+            endsWithCut = true;
+        }
+    }
+
+    /**
+     * Writes part of a container's structure, such as its brackets
+     * <p>
+     * Structure is always written so that containers stay balanced and does not count against the budget.
+     *
+     * @param out where to write
+     * @param c   character to write
+     * @throws IOException see {@link Appendable#append(char)}
+     */
+    public void appendStructure(Appendable out, char c) throws IOException {
+        out.append(c);
+        endsWithCut = false;
+    }
+
+    /**
+     * Claims room for one more container element
+     *
+     * @return true if the element may be written, false if the container should stop here
+     */
+    public boolean tryConsumeElement() {
+        if (truncated || timedOut || elements >= maxElements) {
+            return false;
+        }
+
+        if (timeLimited && System.nanoTime() - deadline >= 0) {
+            timedOut = true;
+            return false;
+        }
+
+        elements++;
+        return true;
+    }
+
+    /**
+     * Writes a marker noting how many elements were left out
+     * <p>
+     * The marker is always written, regardless of the remaining character budget. If output
+     * was cut off immediately before this, the "..." written then is reused.
+     *
+     * @param out     where to write
+     * @param skipped number of elements left out
+     * @throws IOException see {@link Appendable#append(CharSequence)}
+     */
+    public void appendTruncationMarker(Appendable out, int skipped) throws IOException {
+        out.append(endsWithCut ? " " : "... ").append(Integer.toString(skipped)).append(" more");
+        endsWithCut = false;
+    }
+
+    /**
+     * Gets whether the character limit has cut off any output
+     *
+     * @return true if output was truncated
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Gets whether the time limit has cut off any output
+     *
+     * @return true if output was stopped for taking too long
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
@@ -19,10 +19,11 @@ package io.zachbr.debuggery.reflection.types.handlers.output;
 
 import io.zachbr.debuggery.reflection.types.TypeHandler;
 import io.zachbr.debuggery.reflection.types.handlers.base.Handler;
-import io.zachbr.debuggery.reflection.types.handlers.base.OHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OStreamingHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.List;
 
@@ -34,10 +35,10 @@ public class OArrayHandler {
         // loop through all supported classes and register them to the handler
         Class<?>[] supportedClasses = {Object[].class, byte[].class, short[].class, int[].class, long[].class, float[].class, double[].class, boolean[].class, char[].class};
         for (Class<?> clazz : supportedClasses) {
-            OHandler oHandler = new OHandler() {
+            OStreamingHandler oHandler = new OStreamingHandler() {
                 @Override
-                public @Nullable String getFormattedOutput(Object object) {
-                    return getFormattedArray(object);
+                public void appendFormattedOutput(Object object, Appendable out, OutputBudget budget) throws IOException {
+                    appendFormattedArray(object, out, budget);
                 }
 
                 @Override
@@ -50,30 +51,56 @@ public class OArrayHandler {
         }
     }
 
-    private @NotNull String getFormattedArray(Object object) {
-        // Rather than handle every primitive type, just have java autobox the contents
-        if (object.getClass().getComponentType().isPrimitive()) {
-            int length = Array.getLength(object);
-            Object[] newArray = new Object[length];
-
-            for (int i = 0; i < length; i++) {
-                newArray[i] = Array.get(object, i);
-            }
-
-            object = newArray;
+    private void appendFormattedArray(Object array, Appendable out, OutputBudget budget) throws IOException {
+        if (budget.isTruncated()) {
+            return;
         }
 
-        StringBuilder out = new StringBuilder("{");
+        final int length = Array.getLength(array);
+        budget.appendStructure(out, '{');
+
+        for (int i = 0; i < length; i++) {
+            if (!budget.tryConsumeElement()) {
+                if (i != 0 && !budget.isTruncated()) {
+                    out.append(", ");
+                }
 
-        Object[] array = (Object[]) object;
-        for (int i = 0; i < array.length; i++) {
-            out.append(typeHandler.getOutputFor(array[i]));
+                budget.appendTruncationMarker(out, length - i);
+                break;
+            }
 
-            if (i != array.length - 1) {
-                out.append(", ");
+            if (i != 0) {
+                budget.append(out, ", ");
             }
+
+            appendElement(array, i, out, budget);
         }
 
-        return out.append("}").toString();
+        budget.appendStructure(out, '}');
+    }
+
+    private void appendElement(Object array, int index, Appendable out, OutputBudget budget) throws IOException {
+        // write primitives directly rather than boxing every element
+        if (array instanceof Object[]) {
+            typeHandler.appendOutputFor(((Object[]) array)[index], out, budget);
+        } else if (array instanceof int[]) {
+            budget.append(out, Integer.toString(((int[]) array)[index]));
+        } else if (array instanceof long[]) {
+            budget.append(out, Long.toString(((long[]) array)[index]));
+        } else if (array instanceof double[]) {
+            budget.append(out, Double.toString(((double[]) array)[index]));
+        } else if (array instanceof float[]) {
+            budget.append(out, Float.toString(((float[]) array)[index]));
+        } else if (array instanceof byte[]) {
+            budget.append(out, Byte.toString(((byte[]) array)[index]));
+        } else if (array instanceof short[]) {
+            budget.append(out, Short.toString(((short[]) array)[index]));
+        } else if (array instanceof boolean[]) {
+            budget.append(out, Boolean.toString(((boolean[]) array)[index]));
+        } else if (array instanceof char[]) {
+            budget.append(out, ((char[]) array)[index]);
+        } else {
+            throw new IllegalArgumentException("Not an array: " + array.getClass());
+        }
     }
 }
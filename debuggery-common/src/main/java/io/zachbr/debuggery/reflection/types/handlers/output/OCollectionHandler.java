@@ -18,13 +18,14 @@
 package io.zachbr.debuggery.reflection.types.handlers.output;
 
 import io.zachbr.debuggery.reflection.types.TypeHandler;
-import io.zachbr.debuggery.reflection.types.handlers.base.OHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OStreamingHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.Collection;
 
-public class OCollectionHandler implements OHandler {
+public class OCollectionHandler implements OStreamingHandler {
     private final TypeHandler typeHandler;
 
     public OCollectionHandler(TypeHandler handler) {
@@ -32,8 +33,36 @@ public class OCollectionHandler implements OHandler {
     }
 
     @Override
-    public @Nullable String getFormattedOutput(Object object) {
-        return typeHandler.getOutputFor(((Collection<?>) object).toArray()); // use array handler
+    public void appendFormattedOutput(Object object, Appendable out, OutputBudget budget) throws IOException {
+        if (budget.isTruncated()) {
+            return;
+        }
+
+        // same format as the array handler, without copying into an array first
+        final Collection<?> collection = (Collection<?>) object;
+        final int size = collection.size();
+        int written = 0;
+        budget.appendStructure(out, '{');
+
+        for (Object element : collection) {
+            if (!budget.tryConsumeElement()) {
+                if (written != 0 && !budget.isTruncated()) {
+                    out.append(", ");
+                }
+
+                budget.appendTruncationMarker(out, size - written);
+                break;
+            }
+
+            if (written != 0) {
+                budget.append(out, ", ");
+            }
+
+            typeHandler.appendOutputFor(element, out, budget);
+            written++;
+        }
+
+        budget.appendStructure(out, '}');
     }
 
     @Override
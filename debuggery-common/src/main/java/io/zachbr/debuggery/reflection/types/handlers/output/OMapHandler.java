@@ -18,13 +18,14 @@
 package io.zachbr.debuggery.reflection.types.handlers.output;
 
 import io.zachbr.debuggery.reflection.types.TypeHandler;
-import io.zachbr.debuggery.reflection.types.handlers.base.OHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OStreamingHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.Map;
 
-public class OMapHandler implements OHandler {
+public class OMapHandler implements OStreamingHandler {
     private final TypeHandler typeHandler;
 
     public OMapHandler(TypeHandler handler) {
@@ -32,22 +33,39 @@ public class OMapHandler implements OHandler {
     }
 
     @Override
-    public @Nullable String getFormattedOutput(Object object) {
+    public void appendFormattedOutput(Object object, Appendable out, OutputBudget budget) throws IOException {
+        if (budget.isTruncated()) {
+            return;
+        }
+
         final Map<?,?> map = (Map<?,?>) object;
-        StringBuilder out = new StringBuilder().append("{");
+        final int size = map.size();
+        int written = 0;
+        budget.appendStructure(out, '{');
 
-        for (var iterator = map.entrySet().iterator(); iterator.hasNext();) {
-            Map.Entry<?,?> entry = iterator.next();
+        for (Map.Entry<?,?> entry : map.entrySet()) {
+            if (!budget.tryConsumeElement()) {
+                if (written != 0 && !budget.isTruncated()) {
+                    out.append('\n');
+                }
 
-            out.append("[").append(typeHandler.getOutputFor(entry.getKey())).append(", ");
-            out.append(typeHandler.getOutputFor(entry.getValue())).append("]");
+                budget.appendTruncationMarker(out, size - written);
+                break;
+            }
 
-            if (iterator.hasNext()) {
-                out.append("\n");
+            if (written != 0) {
+                budget.append(out, '\n');
             }
+
+            budget.append(out, '[');
+            typeHandler.appendOutputFor(entry.getKey(), out, budget);
+            budget.append(out, ", ");
+            typeHandler.appendOutputFor(entry.getValue(), out, budget);
+            budget.append(out, ']');
+            written++;
         }
 
-        return out.append("}").toString();
+        budget.appendStructure(out, '}');
     }
 
     @Override
@@ -19,7 +19,6 @@ package io.zachbr.debuggery.util;
 
 import io.zachbr.debuggery.reflection.*;
 
-import java.lang.reflect.Method;
 import java.util.*;
 
 public class CommandUtil {
@@ -37,7 +36,7 @@ public class CommandUtil {
 
         if (!completions.isEmpty()) {
             for (String possibleCompletion : completions) {
-                if (doesStartWith(latestArg.toLowerCase(), possibleCompletion.toLowerCase())) {
+                if (doesStartWith(latestArg, possibleCompletion)) {
                     matches.add(possibleCompletion);
                 }
             }
@@ -47,57 +46,28 @@ public class CommandUtil {
     }
 
     /**
-     * Checks that the input matches the potential output
+     * Checks that the input matches the potential output, ignoring case
      *
      * @param target String to search for
      * @param base   Base string to check against
      * @return does the base string start with the target string
      */
     private static boolean doesStartWith(String target, String base) {
-        return base.regionMatches(0, target, 0, target.length());
+        return base.regionMatches(true, 0, target, 0, target.length());
     }
 
     /**
      * Get reflective completions using the given input arguments checking against the initial {@link MethodMap}
      * <p>
      * This does not execute the methods nor does it ever instantiate any type objects as part of that process.
+     * Callers completing for the same sender repeatedly should keep a {@link CompletionSession} instead.
      *
      * @param args command input
      * @param initialMethods the initial method map used to start the loop
      * @param provider the method map provider we should use to get new maps as we need them
      * @return a list of matching completions
      */
-    // todo - find some way to use a no-op reflectionchain with this rather than reimplement that loop
     public static List<String> getReflectiveCompletions(List<String> args, MethodMap initialMethods, MethodMapProvider provider) {
-        MethodMap reflectionMap = initialMethods;
-        Method lastMethod = null;
-        Class<?> returnType = initialMethods.getMappedClass();
-
-        int argsToSkip = 0;
-
-        for (int i = 0; i < args.size(); i++) {
-            String currentArg = args.get(i);
-            if (argsToSkip > 0) {
-                argsToSkip--;
-                reflectionMap = null;
-
-                continue;
-            }
-
-            reflectionMap = provider.getMethodMapFor(returnType);
-
-            if (reflectionMap.getById(currentArg) != null) {
-                lastMethod = reflectionMap.getById(currentArg);
-                Objects.requireNonNull(lastMethod); // throw asap
-                List<String> stringMethodArgs = ReflectionUtil.getArgsForMethod(args.subList(i + 1, args.size()), lastMethod);
-                argsToSkip = stringMethodArgs.size();
-
-                returnType = lastMethod.getReturnType();
-            }
-        }
-
-        return reflectionMap == null
-                ? Collections.emptyList()
-                : getCompletionsMatching(args.toArray(new String[0]), reflectionMap.getAllIds());
+        return new CompletionSession(provider).complete(args, initialMethods);
     }
 }
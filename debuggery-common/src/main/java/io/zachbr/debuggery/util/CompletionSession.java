@@ -0,0 +1,119 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import io.zachbr.debuggery.reflection.MethodMap;
+import io.zachbr.debuggery.reflection.MethodMapProvider;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Remembers how far a sender's reflection chain has been resolved between tab completion requests
+ * <p>
+ * Clients ask for completions on every keystroke, usually only changing the last token. A session keeps
+ * the chain state after each earlier token so that a request only has to resolve the tokens that changed.
+ * This does not execute any methods nor instantiate any types.
+ */
+public final class CompletionSession {
+    private final MethodMapProvider provider;
+    private MethodMap rootMap;
+    // tokens.get(i) was resolved from states.get(i) into states.get(i + 1)
+    private final List<String> tokens = new ArrayList<>();
+    private final List<State> states = new ArrayList<>();
+
+    public CompletionSession(@NotNull MethodMapProvider provider) {
+        this.provider = Objects.requireNonNull(provider);
+    }
+
+    /**
+     * Gets reflective completions for the last token in the given input
+     * <p>
+     * If the root map differs from the one used last time, everything resolved so far is discarded.
+     *
+     * @param args    command input
+     * @param rootMap method map the chain starts from
+     * @return a list of matching completions
+     */
+    public synchronized @NotNull List<String> complete(@NotNull List<String> args, @NotNull MethodMap rootMap) {
+        Objects.requireNonNull(args);
+        Objects.requireNonNull(rootMap);
+
+        if (rootMap != this.rootMap) {
+            this.rootMap = rootMap;
+            tokens.clear();
+            states.clear();
+            states.add(new State(rootMap.getMappedClass(), 0));
+        }
+
+        if (args.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // keep everything resolved from tokens that haven't changed
+        final int lastIndex = args.size() - 1;
+        final int limit = Math.min(tokens.size(), lastIndex);
+        int reusable = 0;
+        while (reusable < limit && tokens.get(reusable).equals(args.get(reusable))) {
+            reusable++;
+        }
+
+        tokens.subList(reusable, tokens.size()).clear();
+        states.subList(reusable + 1, states.size()).clear();
+
+        for (int i = reusable; i < lastIndex; i++) {
+            final String token = args.get(i);
+            states.add(advance(states.get(i), token));
+            tokens.add(token);
+        }
+
+        final State last = states.get(lastIndex);
+        if (last.argsToSkip > 0) {
+            // the last token is a method argument, not a method
+            return Collections.emptyList();
+        }
+
+        final MethodMap map = provider.getMethodMapFor(last.type);
+        return new ArrayList<>(map.getIdsStartingWith(args.get(lastIndex)));
+    }
+
+    private State advance(State state, String token) {
+        if (state.argsToSkip > 0) {
+            return new State(state.type, state.argsToSkip - 1);
+        }
+
+        final Method method = provider.getMethodMapFor(state.type).getById(token);
+        if (method == null) {
+            // unknown methods don't move the chain along
+            return new State(state.type, 0);
+        }
+
+        return new State(method.getReturnType(), method.getParameterCount());
+    }
+
+    private static final class State {
+        private final Class<?> type;
+        private final int argsToSkip;
+
+        private State(Class<?> type, int argsToSkip) {
+            this.type = type;
+            this.argsToSkip = argsToSkip;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A fixed capacity ring of primitive doubles, once full each new value overwrites the oldest
+ * <p>
+ * Nothing is allocated after creation. Not thread safe.
+ */
+public final class DoubleRingBuffer {
+    private final double[] values;
+    private int next;
+    private int size;
+
+    /**
+     * Creates a new, empty, buffer
+     *
+     * @param capacity maximum number of values kept
+     */
+    public DoubleRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Adds a value, dropping the oldest value if the buffer is full
+     *
+     * @param value value to add
+     */
+    public void add(double value) {
+        values[next] = value;
+        next = (next + 1) % values.length;
+        if (size < values.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Gets a value by its age
+     *
+     * @param index 0 for the oldest value kept, up to {@link #size()} - 1 for the newest
+     * @return value
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+
+        return values[(next - size + index + values.length) % values.length];
+    }
+
+    /**
+     * Gets the most recently added value
+     *
+     * @return newest value
+     * @throws NoSuchElementException if the buffer is empty
+     */
+    public double getLatest() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return get(size - 1);
+    }
+
+    /**
+     * Gets the smallest value kept
+     *
+     * @return minimum or NaN if empty
+     */
+    public double min() {
+        double min = size == 0 ? Double.NaN : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+
+        return min;
+    }
+
+    /**
+     * Gets the largest value kept
+     *
+     * @return maximum or NaN if empty
+     */
+    public double max() {
+        double max = size == 0 ? Double.NaN : Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+
+        return max;
+    }
+
+    /**
+     * Gets the mean of the values kept
+     *
+     * @return mean or NaN if empty
+     */
+    public double mean() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+
+        return size == 0 ? Double.NaN : sum / size;
+    }
+
+    /**
+     * Gets the number of values kept
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of values kept
+     *
+     * @return capacity
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Removes every value
+     */
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+}
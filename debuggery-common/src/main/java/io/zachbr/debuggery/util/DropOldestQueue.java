@@ -0,0 +1,172 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, lock-free, queue that never blocks or rejects an offer
+ * <p>
+ * Once full, each new element replaces the oldest one still queued, every element dropped this way is counted.
+ * Any number of threads may offer, elements are meant to be taken by a single consumer, though taking from more
+ * than one thread is still safe.
+ * <p>
+ * Slots carry a sequence number that says whether they are ready to be written or read on the current lap
+ * around the ring, so producers and the consumer only ever contend on their own position counter.
+ *
+ * @param <E> element type
+ */
+public final class DropOldestQueue<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong(); // next position to take from
+    private final AtomicLong tail = new AtomicLong(); // next position to offer to
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates a new, empty, queue
+     *
+     * @param capacity maximum number of elements held, rounded up to a power of two
+     */
+    public DropOldestQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element, dropping the oldest queued element if full
+     *
+     * @param element element to add
+     */
+    public void offer(@NotNull E element) {
+        Objects.requireNonNull(element);
+
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    sequences.set(index, position + 1); // publish to the consumer
+                    return;
+                }
+            } else if (difference < 0) {
+                // the slot still holds an element from the last lap, make room by taking the oldest ourselves
+                if (poll() != null) {
+                    dropped.increment();
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+
+            // otherwise another producer claimed this position first, try the next
+        }
+    }
+
+    /**
+     * Takes the oldest element
+     *
+     * @return oldest element or null if the queue is empty
+     */
+    public @Nullable E poll() {
+        while (true) {
+            final long position = head.get();
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final E element = elements.get(index);
+                    elements.set(index, null);
+                    sequences.set(index, position + mask + 1); // free the slot for the next lap
+                    return element;
+                }
+            } else if (difference < 0) {
+                // empty, or the producer that claimed this slot hasn't finished writing it yet
+                return null;
+            }
+
+            // otherwise another thread took this element first, try the next
+        }
+    }
+
+    /**
+     * Takes up to the given number of elements, oldest first
+     *
+     * @param into     collection to add taken elements to
+     * @param maxCount maximum number of elements to take
+     * @return number of elements taken
+     */
+    public int drainTo(@NotNull Collection<? super E> into, int maxCount) {
+        int count = 0;
+        E element;
+        while (count < maxCount && (element = poll()) != null) {
+            into.add(element);
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets an estimate of the number of queued elements
+     *
+     * @return queued element count
+     */
+    public int size() {
+        final long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * Gets the maximum number of elements held
+     *
+     * @return capacity
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Gets the number of elements dropped to make room for newer ones
+     *
+     * @return dropped element count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * A small, size bounded map whose entries expire once they have gone unused for a while
+ * <p>
+ * Expired entries are dropped lazily whenever the cache is touched, no background task is needed.
+ * All methods are safe to call from multiple threads.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class ExpiringCache<K, V> {
+    private final long timeoutNanos;
+    private final int maximumSize;
+    private final LongSupplier nanoTime;
+    // access ordered so that the eldest entry is always the least recently used, guarded by itself
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75F, true);
+
+    /**
+     * Creates a new cache
+     *
+     * @param timeoutMillis how long an entry may go unused before it expires
+     * @param maximumSize   maximum number of entries kept, the least recently used is evicted first
+     */
+    public ExpiringCache(long timeoutMillis, int maximumSize) {
+        this(timeoutMillis, maximumSize, System::nanoTime);
+    }
+
+    ExpiringCache(long timeoutMillis, int maximumSize, LongSupplier nanoTime) {
+        if (timeoutMillis <= 0 || maximumSize <= 0) {
+            throw new IllegalArgumentException("Timeout and maximum size must be positive");
+        }
+
+        this.timeoutNanos = timeoutMillis * 1_000_000L;
+        this.maximumSize = maximumSize;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Adds or replaces the value for the given key
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void put(@NotNull K key, @NotNull V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+
+        synchronized (entries) {
+            final long now = nanoTime.getAsLong();
+            purgeExpired(now);
+
+            entries.put(key, new Entry<>(value, now));
+            if (entries.size() > maximumSize) {
+                Iterator<K> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the value for the given key, refreshing its expiry
+     *
+     * @param key key
+     * @return value or null if there is none or it expired
+     */
+    public @Nullable V get(@NotNull K key) {
+        Objects.requireNonNull(key);
+
+        synchronized (entries) {
+            final long now = nanoTime.getAsLong();
+            purgeExpired(now);
+
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            entry.lastUsed = now;
+            return entry.value;
+        }
+    }
+
+    /**
+     * Removes the value for the given key
+     *
+     * @param key key
+     * @return removed value or null
+     */
+    public @Nullable V remove(@NotNull K key) {
+        Objects.requireNonNull(key);
+
+        synchronized (entries) {
+            Entry<V> entry = entries.remove(key);
+            return entry == null ? null : entry.value;
+        }
+    }
+
+    /**
+     * Removes all values
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Gets the number of values that have not yet expired
+     *
+     * @return value count
+     */
+    public int size() {
+        synchronized (entries) {
+            purgeExpired(nanoTime.getAsLong());
+            return entries.size();
+        }
+    }
+
+    private void purgeExpired(long now) {
+        // access order means everything past the first live entry is live too
+        for (Iterator<Entry<V>> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            if (now - iterator.next().lastUsed < timeoutNanos) {
+                break;
+            }
+
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private long lastUsed;
+
+        private Entry(V value, long lastUsed) {
+            this.value = value;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An open addressing hash map from primitive longs to primitive int counts
+ * <p>
+ * Built for tallying, such as counting entities per chunk key, without boxing a key or value per entry.
+ * Entries can't be removed. Not thread safe.
+ */
+public final class LongIntMap {
+    private static final float LOAD_FACTOR = 0.5F;
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Creates a new, empty, map
+     *
+     * @param expectedSize number of keys expected, the map grows past this as needed
+     */
+    public LongIntMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative");
+        }
+
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1));
+    }
+
+    /**
+     * Adds to the value of a key, a missing key is treated as 0
+     *
+     * @param key    key to add to
+     * @param amount amount to add
+     * @return new value
+     */
+    public int add(long key, int amount) {
+        int slot = findSlot(key);
+        if (!used[slot]) {
+            if (size >= resizeAt) {
+                resize();
+                slot = findSlot(key);
+            }
+
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+
+        return values[slot] += amount;
+    }
+
+    /**
+     * Adds one to the value of a key, a missing key is treated as 0
+     *
+     * @param key key to increment
+     * @return new value
+     */
+    public int increment(long key) {
+        return add(key, 1);
+    }
+
+    /**
+     * Gets the value of a key
+     *
+     * @param key key to look up
+     * @return value, or 0 if the key is missing
+     */
+    public int get(long key) {
+        final int slot = findSlot(key);
+        return used[slot] ? values[slot] : 0;
+    }
+
+    /**
+     * Gets whether the map holds a key
+     *
+     * @param key key to look up
+     * @return true if present
+     */
+    public boolean containsKey(long key) {
+        return used[findSlot(key)];
+    }
+
+    /**
+     * Gets the number of keys held
+     *
+     * @return key count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the visitor once for every entry, in no particular order
+     *
+     * @param visitor visitor to call
+     */
+    public void forEach(@NotNull EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets the keys with the highest values
+     * <p>
+     * Keys with equal values are returned in no particular order.
+     *
+     * @param count maximum number of keys to return
+     * @return keys with the highest values, highest first
+     */
+    public @NotNull long[] getTopKeys(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+
+        // kept sorted highest first, once full the last entry is the bar new entries must beat
+        final int capacity = Math.min(count, size);
+        final long[] topKeys = new long[capacity];
+        final int[] topValues = new int[capacity];
+        int found = 0;
+
+        for (int i = 0; i < keys.length && capacity != 0; i++) {
+            if (!used[i] || found == capacity && values[i] <= topValues[capacity - 1]) {
+                continue;
+            }
+
+            int at = found == capacity ? capacity - 1 : found++;
+            while (at > 0 && topValues[at - 1] < values[i]) {
+                topValues[at] = topValues[at - 1];
+                topKeys[at] = topKeys[at - 1];
+                at--;
+            }
+
+            topValues[at] = values[i];
+            topKeys[at] = keys[i];
+        }
+
+        return topKeys;
+    }
+
+    private int findSlot(long key) {
+        final int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        final boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                final int slot = findSlot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        // packed coordinates differ mostly in their low bits of each half, spread them over the whole hash
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder out = new StringBuilder("{");
+        forEach((key, value) -> out.append(out.length() == 1 ? "" : ", ").append(key).append('=').append(value));
+        return out.append('}').toString();
+    }
+
+    /**
+     * Receives the entries of a {@link LongIntMap}
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+
+        void visit(long key, int value);
+    }
+}
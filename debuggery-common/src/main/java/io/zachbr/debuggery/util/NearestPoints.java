@@ -0,0 +1,108 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of 3D points that can be searched for the one nearest to a target
+ * <p>
+ * Points are kept as packed primitive coordinates and compared by squared distance in a single pass.
+ * A point is rejected as soon as any one axis alone puts it further away than the current best match.
+ * <p>
+ * Not thread safe, use one buffer per thread and {@link #clear()} it between uses.
+ */
+public final class NearestPoints {
+    private double[] coordinates = new double[3 * 32];
+    private int size;
+
+    /**
+     * Adds a point, its index is the number of points added before it since the last clear
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     */
+    public void add(double x, double y, double z) {
+        final int offset = size * 3;
+        if (offset + 3 > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+        }
+
+        coordinates[offset] = x;
+        coordinates[offset + 1] = y;
+        coordinates[offset + 2] = z;
+        size++;
+    }
+
+    /**
+     * Gets the number of points held
+     *
+     * @return point count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every point, keeping the buffer's capacity
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Finds the point nearest to the target
+     *
+     * @param x           target x
+     * @param y           target y
+     * @param z           target z
+     * @param maxDistance maximum distance a point may be from the target
+     * @return index of the nearest point, or -1 if none are within range
+     */
+    public int nearest(double x, double y, double z, double maxDistance) {
+        double bestSquared = maxDistance * maxDistance;
+        int best = -1;
+
+        for (int i = 0, offset = 0; i < size; i++, offset += 3) {
+            final double dx = coordinates[offset] - x;
+            double distanceSquared = dx * dx;
+            if (distanceSquared > bestSquared) {
+                continue;
+            }
+
+            final double dy = coordinates[offset + 1] - y;
+            distanceSquared += dy * dy;
+            if (distanceSquared > bestSquared) {
+                continue;
+            }
+
+            final double dz = coordinates[offset + 2] - z;
+            distanceSquared += dz * dz;
+            if (distanceSquared < bestSquared || distanceSquared == bestSquared && best == -1) {
+                bestSquared = distanceSquared;
+                best = i;
+                if (distanceSquared == 0) {
+                    break; // nothing can beat an exact match
+                }
+            }
+        }
+
+        return best;
+    }
+}
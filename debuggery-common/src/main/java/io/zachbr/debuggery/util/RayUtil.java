@@ -0,0 +1,89 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+/**
+ * Ray and axis aligned bounding box math
+ */
+public final class RayUtil {
+
+    private RayUtil() {
+    }
+
+    /**
+     * Gets how far along a ray it first enters a box
+     * <p>
+     * Distances are in multiples of the direction's length. A box the origin is inside of is hit at distance 0.
+     *
+     * @param originX    ray origin x
+     * @param originY    ray origin y
+     * @param originZ    ray origin z
+     * @param directionX ray direction x
+     * @param directionY ray direction y
+     * @param directionZ ray direction z
+     * @param minX       box minimum x
+     * @param minY       box minimum y
+     * @param minZ       box minimum z
+     * @param maxX       box maximum x
+     * @param maxY       box maximum y
+     * @param maxZ       box maximum z
+     * @return distance to the box, or -1 if the ray misses it
+     */
+    public static double getRayIntersection(double originX, double originY, double originZ,
+                                            double directionX, double directionY, double directionZ,
+                                            double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        double entry = 0;
+        double exit = Double.POSITIVE_INFINITY;
+
+        // clip the ray against each pair of parallel planes in turn
+        if (directionX == 0) {
+            if (originX < minX || originX > maxX) {
+                return -1;
+            }
+        } else {
+            final double near = (minX - originX) / directionX;
+            final double far = (maxX - originX) / directionX;
+            entry = Math.max(entry, Math.min(near, far));
+            exit = Math.min(exit, Math.max(near, far));
+        }
+
+        if (directionY == 0) {
+            if (originY < minY || originY > maxY) {
+                return -1;
+            }
+        } else {
+            final double near = (minY - originY) / directionY;
+            final double far = (maxY - originY) / directionY;
+            entry = Math.max(entry, Math.min(near, far));
+            exit = Math.min(exit, Math.max(near, far));
+        }
+
+        if (directionZ == 0) {
+            if (originZ < minZ || originZ > maxZ) {
+                return -1;
+            }
+        } else {
+            final double near = (minZ - originZ) / directionZ;
+            final double far = (maxZ - originZ) / directionZ;
+            entry = Math.max(entry, Math.min(near, far));
+            exit = Math.min(exit, Math.max(near, far));
+        }
+
+        return entry <= exit ? entry : -1;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery;
+
+import io.zachbr.debuggery.reflection.ReflTestClass;
+import io.zachbr.debuggery.reflection.types.TypeHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OHandler;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class LoggerTest {
+
+    @Test
+    public void testFormat() {
+        assertEquals("plain", Logger.format("plain"));
+        assertEquals("a 1 b 2", Logger.format("a {} b {}", 1, 2));
+        assertEquals("a null b {}", Logger.format("a {} b {}", (Object) null));
+        assertEquals("x", Logger.format("x", "unused"));
+    }
+
+    @Test
+    public void ensureNoMessagesBuiltWhenDisabled() {
+        CountingLogger logger = new CountingLogger(false);
+        TypeHandler typeHandler = new TypeHandler(logger);
+        CountingHandler handler = new CountingHandler();
+
+        assertTrue(typeHandler.registerHandler(handler));
+        assertEquals("counted", typeHandler.getOutputFor(new ReflTestClass(1, 2, 3)));
+        assertNotNull(typeHandler.getIHandlerForClass(String.class));
+
+        // lazily built messages should be skipped too
+        logger.debug(() -> {
+            throw new AssertionError("supplier should never be called");
+        });
+
+        assertEquals(0, logger.messages);
+        assertEquals(0, handler.toStringCalls);
+    }
+
+    @Test
+    public void ensureMessagesBuiltWhenEnabled() {
+        CountingLogger logger = new CountingLogger(true);
+        TypeHandler typeHandler = new TypeHandler(logger);
+        CountingHandler handler = new CountingHandler();
+
+        assertTrue(typeHandler.registerHandler(handler));
+        assertTrue(logger.messages > 0);
+        assertTrue(handler.toStringCalls > 0);
+    }
+
+    @Test
+    public void ensureNoDebugGarbageWhenDisabled() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(allocBean.isThreadAllocatedMemorySupported() && allocBean.isThreadAllocatedMemoryEnabled());
+
+        Logger logger = new CountingLogger(false);
+        Object arg1 = new Object();
+        Object arg2 = String.class;
+        Object arg3 = "three";
+
+        // warm up so class loading and linkage don't show up in the measurement
+        logDisabled(logger, arg1, arg2, arg3, 10_000);
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = allocBean.getThreadAllocatedBytes(threadId);
+        logDisabled(logger, arg1, arg2, arg3, 100_000);
+        final long allocated = allocBean.getThreadAllocatedBytes(threadId) - before;
+
+        // the measurement itself can cost a few bytes, but message building would be megabytes
+        assertTrue(allocated < 4096, "Disabled debug logging allocated " + allocated + " bytes");
+    }
+
+    private static void logDisabled(Logger logger, Object arg1, Object arg2, Object arg3, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            logger.debug("Found input handler {} for {}", arg1, arg2);
+            logger.debug("Unable to find existing polymorphic handler for {} in {} {}", arg1, arg2, arg3);
+            logger.debug("Attempting to remove handler: {}", arg1);
+        }
+    }
+
+    private static class CountingLogger implements Logger {
+        private final boolean debugEnabled;
+        private int messages;
+
+        CountingLogger(boolean debugEnabled) {
+            this.debugEnabled = debugEnabled;
+        }
+
+        @Override
+        public void info(String str) {
+        }
+
+        @Override
+        public void warn(String str) {
+        }
+
+        @Override
+        public void err(String str) {
+        }
+
+        @Override
+        public void debug(String str) {
+            if (debugEnabled) {
+                messages++;
+            }
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return debugEnabled;
+        }
+    }
+
+    private static class CountingHandler implements OHandler {
+        private int toStringCalls;
+
+        @Override
+        public String getFormattedOutput(Object object) {
+            return "counted";
+        }
+
+        @NotNull
+        @Override
+        public Class<?> getRelevantClass() {
+            return ReflTestClass.class;
+        }
+
+        @Override
+        public String toString() {
+            toStringCalls++;
+            return "CountingHandler";
+        }
+    }
+}
@@ -35,9 +35,14 @@ public class TestLoggerImpl implements Logger {
         System.out.println("[ERROR] " + str);
     }
 
+    @Override
+    public boolean isDebugEnabled() {
+        return DEBUG_ENABLED;
+    }
+
     @Override
     public void debug(String str) {
-        if (!DEBUG_ENABLED) {
+        if (!isDebugEnabled()) {
             return;
         }
 
@@ -20,11 +20,10 @@ package io.zachbr.debuggery.reflection;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class MethodMapProviderTest {
 
@@ -87,4 +86,139 @@ public class MethodMapProviderTest {
         assertTrue(post != prior);
         assertEquals(0, post);
     }
+
+    @Test
+    public void ensureHitsAndMissesCounted() {
+        MethodMapProvider mapCache = new MethodMapProvider();
+
+        mapCache.getMethodMapFor(ReflTestClass.class);
+        mapCache.getMethodMapFor(ReflTestClass.class);
+        mapCache.getMethodMapFor(ReflTestClass.class);
+        assertEquals(3, mapCache.getLookupCount());
+        assertEquals(1, mapCache.getMissCount());
+        assertEquals(1, mapCache.getCachedMapCount());
+
+        mapCache.clearCache();
+        mapCache.getMethodMapFor(ReflTestClass.class);
+        assertEquals(2, mapCache.getMissCount());
+    }
+
+    @Test
+    public void ensureSingleMapUnderContention() throws InterruptedException, ExecutionException {
+        MethodMapProvider mapCache = new MethodMapProvider();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MethodMap>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return mapCache.getMethodMapFor(Assertions.class);
+                }));
+            }
+
+            start.countDown();
+            MethodMap first = results.get(0).get();
+            for (Future<MethodMap> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, mapCache.getAllMappedClasses().size());
+    }
+
+    @Test
+    public void ensureBoundedEviction() {
+        MethodMapProvider mapCache = new MethodMapProvider(2);
+
+        Class[] testers = {this.getClass(), ReflTestClass.class, Assertions.class};
+        for (Class clazz : testers) {
+            mapCache.getMethodMapFor(clazz);
+        }
+
+        // oldest map is evicted first
+        Set<Class<?>> mappedClasses = mapCache.getAllMappedClasses();
+        assertEquals(2, mappedClasses.size());
+        assertFalse(mappedClasses.contains(this.getClass()));
+        assertTrue(mappedClasses.contains(ReflTestClass.class));
+        assertTrue(mappedClasses.contains(Assertions.class));
+
+        // and is rebuilt on request
+        assertNotNull(mapCache.getMethodMapFor(this.getClass()));
+        assertTrue(mapCache.getAllMappedClasses().contains(this.getClass()));
+        assertEquals(2, mapCache.getAllMappedClasses().size());
+    }
+
+    @Test
+    public void ensureWarmUpCoversReturnTypes() throws InterruptedException, ExecutionException {
+        MethodMapProvider mapCache = new MethodMapProvider();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Class<?>> roots = Arrays.asList(ReflTestClass.class, ReflTestClass.class);
+            int warmed = mapCache.warmUp(roots, executor).get();
+
+            Set<Class<?>> mappedClasses = mapCache.getAllMappedClasses();
+            assertEquals(warmed, mappedClasses.size());
+            assertTrue(mappedClasses.contains(ReflTestClass.class));
+            assertTrue(mappedClasses.contains(ReflTestClass.ReflSubClass.class));
+            assertTrue(mappedClasses.contains(int[].class));
+            assertTrue(mappedClasses.contains(List.class));
+            assertFalse(mappedClasses.contains(void.class));
+            assertFalse(mappedClasses.contains(int.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void ensureHierarchicalMapsMatchFlatMaps() {
+        MethodMapProvider mapCache = new MethodMapProvider();
+
+        Class[] testers = {ArrayList.class, List.class, ReflTestClass.ReflSubClass.class, int[].class, int.class, StaticChild.class};
+        for (Class clazz : testers) {
+            MethodMap expected = new MethodMap(clazz);
+            MethodMap actual = mapCache.getMethodMapFor(clazz);
+
+            assertEquals(expected, actual);
+            assertEquals(expected.getAllIds(), actual.getAllIds());
+            for (String id : expected.getAllIds()) {
+                assertEquals(expected.getById(id), actual.getById(id), id);
+            }
+        }
+
+        // parents only built to share entries aren't reported as mapped
+        assertFalse(mapCache.getAllMappedClasses().contains(Object.class));
+    }
+
+    @Test
+    public void ensureInheritedEntriesShared() {
+        MethodMapProvider mapCache = new MethodMapProvider();
+
+        MethodMap listMap = mapCache.getMethodMapFor(ArrayList.class);
+        MethodMap objectMap = mapCache.getMethodMapFor(Object.class);
+        assertSame(objectMap.getHandleById("wait()"), listMap.getHandleById("wait()"));
+        assertNotNull(listMap.getHandleById("wait()"));
+
+        // static interface methods are not inherited by subinterfaces
+        assertTrue(mapCache.getMethodMapFor(StaticParent.class).containsId("parentStatic()"));
+        assertFalse(mapCache.getMethodMapFor(StaticChild.class).containsId("parentStatic()"));
+        assertNull(mapCache.getMethodMapFor(StaticChild.class).getHandleById("parentStatic()"));
+        assertTrue(mapCache.getMethodMapFor(StaticChild.class).containsId("inherited()"));
+    }
+
+    public interface StaticParent {
+        static int parentStatic() {
+            return 1;
+        }
+
+        int inherited();
+    }
+
+    public interface StaticChild extends StaticParent {
+    }
 }
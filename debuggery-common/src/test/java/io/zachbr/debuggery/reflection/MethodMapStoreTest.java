@@ -0,0 +1,123 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MethodMapStoreTest {
+    private static final Class[] TESTERS = {ReflTestClass.class, ReflTestClass.ReflSubClass.class, ArrayList.class,
+            List.class, MethodMapProviderTest.StaticChild.class, int[].class};
+
+    @Test
+    public void ensureStoredMapsMatchReflection(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("method-maps.bin");
+        MethodMapProvider original = new MethodMapProvider();
+        for (Class clazz : TESTERS) {
+            original.getMethodMapFor(clazz);
+        }
+
+        original.save(file, "test");
+
+        MethodMapStore store = MethodMapStore.open(file, "test");
+        assertNotNull(store);
+        assertTrue(store.contains(ArrayList.class));
+        assertTrue(store.contains(Object.class));
+
+        MethodMapProvider restored = new MethodMapProvider();
+        restored.setStore(store);
+        for (Class clazz : TESTERS) {
+            MethodMap expected = new MethodMap(clazz);
+            MethodMap actual = restored.getMethodMapFor(clazz);
+
+            assertEquals(expected, actual);
+            for (String id : expected.getAllIds()) {
+                assertEquals(expected.getById(id), actual.getById(id), id);
+            }
+        }
+
+        assertFalse(restored.getMethodMapFor(MethodMapProviderTest.StaticChild.class).containsId("parentStatic()"));
+        assertNotNull(restored.getMethodMapFor(ReflTestClass.class).getHandleById("getNumbersPlusParam(int)"));
+    }
+
+    @Test
+    public void ensureStaleStoresIgnored(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("method-maps.bin");
+        assertNull(MethodMapStore.open(file, "test"));
+
+        MethodMapProvider provider = new MethodMapProvider();
+        provider.getMethodMapFor(ReflTestClass.class);
+        provider.save(file, "old");
+
+        assertNull(MethodMapStore.open(file, "new"));
+        assertNotNull(MethodMapStore.open(file, "old"));
+
+        // truncated files are reported rather than half read
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> MethodMapStore.open(file, "old"));
+    }
+
+    @Test
+    public void ensureClassesFromChangedJarsRebuilt(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("method-maps.bin");
+        MethodMapProvider original = new MethodMapProvider();
+        original.getMethodMapFor(ReflTestClass.class);
+
+        // pretend the test classes were saved from a different build of their jar
+        List<MethodMap> maps = Arrays.asList(original.getMethodMapFor(ReflTestClass.class), original.getMethodMapFor(Object.class));
+        MethodMapStore.save(file, "test", maps, clazz -> clazz == ReflTestClass.class ? "old.jar:1:1" : MethodMapStore.describeCodeSource(clazz));
+
+        MethodMapStore store = MethodMapStore.open(file, "test");
+        assertNotNull(store);
+        assertTrue(store.contains(ReflTestClass.class));
+        assertNull(store.read(ReflTestClass.class, Collections.emptyList()));
+        assertNotNull(store.read(Object.class, Collections.emptyList()));
+
+        MethodMapProvider restored = new MethodMapProvider();
+        restored.setStore(store);
+        assertEquals(new MethodMap(ReflTestClass.class), restored.getMethodMapFor(ReflTestClass.class));
+        assertEquals("", MethodMapStore.describeCodeSource(Object.class));
+        assertNotEquals("", MethodMapStore.describeCodeSource(ReflTestClass.class));
+    }
+
+    @Test
+    public void ensureStaleEntriesFallBackToReflection() throws NoSuchMethodException {
+        Map<String, String[]> entries = new HashMap<>();
+        entries.put("getSomeNumbers()", new String[]{"io.zachbr.debuggery.reflection.Missing", "getSomeNumbers"});
+
+        MethodMap map = new MethodMap(ReflTestClass.class, Collections.emptyList(), entries, Collections.emptySet(), 1);
+        Method expected = ReflTestClass.class.getMethod("getSomeNumbers");
+        assertEquals(expected, map.getById("getSomeNumbers()"));
+        assertNotNull(map.getHandleById("getSomeNumbers()"));
+    }
+
+    @Test
+    public void ensureFingerprintsDiffer() {
+        assertEquals(MethodMapStore.fingerprint("a", "b"), MethodMapStore.fingerprint("a", "b"));
+        assertNotEquals(MethodMapStore.fingerprint("a", "b"), MethodMapStore.fingerprint("ab"));
+    }
+}
@@ -20,10 +20,13 @@ package io.zachbr.debuggery.reflection;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +47,24 @@ public class MethodMapTest {
         assertEquals(0, missing);
     }
 
+    @Test
+    public void testIdsStartingWith() {
+        MethodMap methodMap = new MethodMap(TESTER);
+        Set<String> identifiers = methodMap.getAllIds();
+
+        for (String prefix : new String[]{"", "get", "GET", "getS", "getsomen", "h", "zzz", "getNumbersPlusParam(int)"}) {
+            List<String> expected = identifiers.stream()
+                    .filter(id -> id.toLowerCase().startsWith(prefix.toLowerCase()))
+                    .sorted(String.CASE_INSENSITIVE_ORDER)
+                    .collect(Collectors.toList());
+
+            assertEquals(expected, methodMap.getIdsStartingWith(prefix), "prefix: " + prefix);
+        }
+
+        assertTrue(methodMap.getIdsStartingWith("zzz").isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> methodMap.getIdsStartingWith("").clear());
+    }
+
     @Test
     public void testContainsIds() {
         MethodMap methodMap = new MethodMap(TESTER);
@@ -69,6 +90,40 @@ public class MethodMapTest {
         assertNotNull(methodMap.getById(id));
     }
 
+    @Test
+    public void testHandleInvocation() throws Throwable {
+        Method method = ReflTestClass.class.getMethod("getNumbersPlusParam", int.class);
+        String id = ReflectionUtil.getMethodId(method);
+
+        MethodMap methodMap = new MethodMap(ReflTestClass.class);
+        MethodHandle handle = methodMap.getHandleById(id);
+        assertNotNull(handle);
+        assertSame(handle, methodMap.getHandleById(id));
+
+        ReflTestClass instance = new ReflTestClass(1, 2, 3);
+        Object viaHandle = (Object) handle.invokeExact((Object) instance, new Object[]{4});
+        Object viaReflection = method.invoke(instance, 4);
+
+        assertArrayEquals((int[]) viaReflection, (int[]) viaHandle);
+    }
+
+    @Test
+    public void testStaticHandleInvocation() throws Throwable {
+        MethodMap methodMap = new MethodMap(Integer.class);
+        MethodHandle handle = methodMap.getHandleById("valueOf(int)");
+        assertNotNull(handle);
+
+        // static methods ignore whatever receiver they are given
+        Object result = (Object) handle.invokeExact((Object) null, new Object[]{42});
+        assertEquals(42, result);
+    }
+
+    @Test
+    public void ensureNoHandleForUnknownId() {
+        MethodMap methodMap = new MethodMap(ReflTestClass.class);
+        assertNull(methodMap.getHandleById("getPotatoes()"));
+    }
+
     @Test
     public void ensureHashcodes() {
         MethodMap map1 = new MethodMap(TESTER);
@@ -96,6 +151,37 @@ public class MethodMapTest {
         assertEquals(hashEquality, objectEquality);
     }
 
+    @Test
+    public void ensureSharedHierarchyEqualsFlatMap() {
+        MethodMap shared = new MethodMapProvider().getMethodMapFor(java.util.ArrayList.class);
+        MethodMap flat = new MethodMap(java.util.ArrayList.class);
+
+        assertEquals(flat, shared);
+        assertEquals(flat.hashCode(), shared.hashCode());
+        assertEquals(flat.getAllIds(), shared.getAllIds());
+        assertEquals(flat.getAllMethods(), shared.getAllMethods());
+
+        // inherited lookups are remembered, the second must still resolve the same method
+        assertSame(shared.getById("hashCode()"), shared.getById("hashCode()"));
+        assertEquals(flat.getById("hashCode()"), shared.getById("hashCode()"));
+    }
+
+    @Test
+    public void ensureBuildingChildrenDoesntCacheInParents() {
+        MethodMapProvider provider = new MethodMapProvider();
+        MethodMap parent = provider.getMethodMapFor(java.util.AbstractList.class);
+        MethodMap child = provider.getMethodMapFor(java.util.ArrayList.class);
+
+        assertEquals(new MethodMap(java.util.ArrayList.class), child);
+        assertEquals(0, parent.getInheritedCacheSize());
+        assertEquals(0, child.getInheritedCacheSize());
+
+        // only the map actually queried remembers the lookup
+        assertNotNull(child.getById("notify()"));
+        assertEquals(1, child.getInheritedCacheSize());
+        assertEquals(0, parent.getInheritedCacheSize());
+    }
+
     @Test
     public void ensureToStringIsntUseless() {
         MethodMap map = new MethodMap(TESTER);
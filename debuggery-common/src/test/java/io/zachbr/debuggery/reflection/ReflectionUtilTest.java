@@ -23,8 +23,7 @@ import java.lang.reflect.Method;
 import java.util.*;
 import java.util.function.BiConsumer;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class ReflectionUtilTest {
 
@@ -72,6 +71,25 @@ public class ReflectionUtilTest {
         assertEquals(0, whitespaceCount);
     }
 
+    @Test
+    public void ensureMethodIdsMatchSignatures() throws NoSuchMethodException {
+        Method lotsOfParams = ReflTestClass.class.getMethod("methodWithLotsOfParams", int.class, int.class, int.class, int.class, int.class, int.class, int.class);
+        assertEquals("methodWithLotsOfParams(int,int,int,int,int,int,int)", ReflectionUtil.getMethodId(lotsOfParams));
+        assertEquals("methodWithLotsOfParams(int, int, int, int, int, int, int)", ReflectionUtil.getFormattedMethodSignature(lotsOfParams));
+
+        Method equals = Object.class.getMethod("equals", Object.class);
+        assertEquals("equals(Object)", ReflectionUtil.getMethodId(equals));
+        assertEquals("getSomeNumbers()", ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSomeNumbers")));
+    }
+
+    @Test
+    public void ensureMethodIdsShared() throws NoSuchMethodException {
+        // inherited methods show up in every map, they should all share one id instance
+        String fromTestClass = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("equals", Object.class));
+        String fromSubClass = ReflectionUtil.getMethodId(ReflTestClass.ReflSubClass.class.getMethod("equals", Object.class));
+        assertSame(fromTestClass, fromSubClass);
+    }
+
     @Test
     public void validateArgsMismatchContent() throws NoSuchMethodException {
         BiConsumer<Method, String> validateBasics = (method, s) -> {
@@ -0,0 +1,279 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.chain;
+
+import io.zachbr.debuggery.TestLoggerImpl;
+import io.zachbr.debuggery.reflection.MethodMapProvider;
+import io.zachbr.debuggery.reflection.types.TypeHandler;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChainAggregateTest {
+    private final TypeHandler typeHandler = new TypeHandler(new TestLoggerImpl());
+    private final ReflectionChainFactory chainFactory = new ReflectionChainFactory(typeHandler, new MethodMapProvider(), new TestLoggerImpl());
+
+    @Test
+    public void batchAggregatesResults() {
+        List<Object> roots = Arrays.asList("a", "bb", null, "cc", "dddd", 5);
+        ChainAggregate aggregate = chainFactory.runBatch(new String[]{"length()"}, roots, null);
+
+        assertEquals(5, aggregate.getTotal());
+        assertEquals(4, aggregate.getCount(ReflectionResult.Type.SUCCESS));
+        assertEquals(1, aggregate.getCount(ReflectionResult.Type.UNKNOWN_REFERENCE));
+        assertNotNull(aggregate.getFirstReason(ReflectionResult.Type.UNKNOWN_REFERENCE));
+
+        assertEquals(4, aggregate.getNumericCount());
+        assertEquals(1, aggregate.getMin());
+        assertEquals(4, aggregate.getMax());
+        assertEquals(9, aggregate.getSum());
+        assertEquals(2.25, aggregate.getAverage());
+
+        Map<Object, Long> values = aggregate.getDistinctValues();
+        assertEquals(3, values.size());
+        assertEquals(2, values.values().iterator().next()); // most common first
+        assertEquals(2L, values.get(2));
+
+        String output = aggregate.format(typeHandler, OutputBudget.unbounded());
+        assertTrue(output.startsWith("Ran 5 chains"));
+        assertTrue(output.contains("min: 1, max: 4"));
+    }
+
+    @Test
+    public void batchSharesPlans() {
+        List<String> roots = Arrays.asList("a", "b", "c");
+        chainFactory.runBatch(new String[]{"toUpperCase()", "length()"}, roots, null);
+
+        assertEquals(1, chainFactory.getCachedPlanCount());
+    }
+
+    @Test
+    public void distinctValuesAreBounded() {
+        ChainAggregate aggregate = new ChainAggregate(2);
+        for (String value : new String[]{"a", "b", "a", "c", "d"}) {
+            aggregate.add(new ReflectionResult(ReflectionResult.Type.SUCCESS, value));
+        }
+
+        assertEquals(2, aggregate.getDistinctValues().size());
+        assertEquals(2L, aggregate.getDistinctValues().get("a"));
+        assertEquals(2, aggregate.getUntrackedValueCount());
+        assertEquals(0, aggregate.getNumericCount());
+        assertTrue(Double.isNaN(aggregate.getMin()));
+    }
+
+    @Test
+    public void lateCommonValueIsReported() {
+        ChainAggregate aggregate = new ChainAggregate(ChainAggregate.DEFAULT_MAX_DISTINCT_VALUES);
+        for (int i = 0; i < ChainAggregate.DEFAULT_MAX_DISTINCT_VALUES; i++) {
+            aggregate.add(new ReflectionResult(ReflectionResult.Type.SUCCESS, "rare" + i));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            aggregate.add(new ReflectionResult(ReflectionResult.Type.SUCCESS, "common"));
+        }
+
+        Map<Object, Long> values = aggregate.getDistinctValues();
+        assertEquals(ChainAggregate.DEFAULT_MAX_DISTINCT_VALUES, values.size());
+        assertEquals("common", values.keySet().iterator().next());
+        assertEquals(10L, values.get("common"));
+        assertEquals(1, aggregate.getUntrackedValueCount());
+        assertTrue(aggregate.format(typeHandler, OutputBudget.unbounded()).contains("1 more across 1 other values"));
+    }
+
+    @Test
+    public void slicedBatchSpreadsOverTasks() throws Exception {
+        List<Object> roots = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            roots.add(i % 10 == 0 ? null : "root" + i);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger tasks = new AtomicInteger();
+        Executor counting = task -> {
+            tasks.incrementAndGet();
+            executor.execute(task);
+        };
+
+        try {
+            // every root uses up its slice, so each one gets a task of its own
+            chainFactory.setBatchTimeBudget(1, 0);
+            ChainAggregate sliced = chainFactory.runBatchSliced(new String[]{"length()"}, roots, null, counting).get(30, TimeUnit.SECONDS);
+            ChainAggregate expected = chainFactory.runBatch(new String[]{"length()"}, roots, null);
+
+            assertEquals(expected.getTotal(), sliced.getTotal());
+            assertEquals(expected.getCount(ReflectionResult.Type.SUCCESS), sliced.getCount(ReflectionResult.Type.SUCCESS));
+            assertEquals(expected.getDistinctValues(), sliced.getDistinctValues());
+            assertTrue(tasks.get() > 1, "tasks: " + tasks.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void slicedBatchStopsWhenOutOfTime() throws Exception {
+        List<Object> roots = Arrays.asList("a", "bb", null, "cc", "dddd");
+
+        chainFactory.setBatchTimeBudget(0, 1);
+        ChainAggregate aggregate = chainFactory.runBatchSliced(new String[]{"length()"}, roots, null, Runnable::run).get(30, TimeUnit.SECONDS);
+
+        // the first root always runs, however small the budget
+        assertEquals(4, aggregate.getTotal());
+        assertEquals(1, aggregate.getCount(ReflectionResult.Type.SUCCESS));
+        assertEquals(3, aggregate.getCount(ReflectionResult.Type.TIMED_OUT));
+        assertNotNull(aggregate.getFirstReason(ReflectionResult.Type.TIMED_OUT));
+
+        assertThrows(IllegalArgumentException.class, () -> chainFactory.setBatchTimeBudget(-1, 0));
+    }
+
+    @Test
+    public void slicedBatchStopsSlowChains() throws Exception {
+        // chains are given the rest of the slice as their own budget, so multi-step chains stop after one step
+        chainFactory.setBatchTimeBudget(1, 0);
+        List<Object> roots = Arrays.asList("a", "bb", "cc");
+        ChainAggregate aggregate = chainFactory.runBatchSliced(new String[]{"toUpperCase()", "trim()", "length()"}, roots, null, Runnable::run)
+                .get(30, TimeUnit.SECONDS);
+
+        assertEquals(3, aggregate.getCount(ReflectionResult.Type.TIMED_OUT));
+        assertEquals(0, aggregate.getCount(ReflectionResult.Type.SUCCESS));
+
+        chainFactory.setBatchTimeBudget(0, 0);
+        aggregate = chainFactory.runBatchSliced(new String[]{"toUpperCase()", "trim()", "length()"}, roots, null, Runnable::run)
+                .get(30, TimeUnit.SECONDS);
+        assertEquals(3, aggregate.getCount(ReflectionResult.Type.SUCCESS));
+    }
+
+    @Test
+    public void parallelBatchDoesntHoldAsyncThread() throws Exception {
+        List<ReflectionChainTest.ThreadProbe> roots = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            roots.add(new ReflectionChainTest.ThreadProbe());
+        }
+
+        ExecutorService sync = Executors.newSingleThreadExecutor();
+        ExecutorService async = Executors.newSingleThreadExecutor();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch poolBusy = new CountDownLatch(1);
+        try {
+            // keep the pool's only worker busy so the split part of the batch can't start yet
+            pool.execute(() -> {
+                try {
+                    poolBusy.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            AsyncChainPolicy safe = new AsyncChainPolicy(sync, async, Set.of(ReflectionChainTest.ThreadProbe.class), Collections.emptyMap());
+            CompletableFuture<ChainAggregate> batch = chainFactory.runBatchAsync(new String[]{"threadName()"}, roots, null, safe, pool);
+
+            // the async executor's only thread is still free for other chains
+            ReflectionResult other = chainFactory.runChainAsync(new String[]{"threadName()"}, new ReflectionChainTest.ThreadProbe(), null, safe)
+                    .get(10, TimeUnit.SECONDS);
+            assertSame(ReflectionResult.Type.SUCCESS, other.getType());
+            assertFalse(batch.isDone());
+
+            poolBusy.countDown();
+            assertEquals(roots.size(), batch.get(30, TimeUnit.SECONDS).getCount(ReflectionResult.Type.SUCCESS));
+        } finally {
+            poolBusy.countDown();
+            sync.shutdownNow();
+            async.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void parallelBatchMatchesSequential() throws Exception {
+        List<Object> roots = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            roots.add("x".repeat(i % 50));
+        }
+        roots.add(null);
+        roots.add(42);
+
+        ExecutorService sync = Executors.newSingleThreadExecutor();
+        ExecutorService async = Executors.newSingleThreadExecutor();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            String[] input = {"length()"};
+            ChainAggregate expected = chainFactory.runBatch(input, roots, null);
+
+            for (AsyncChainPolicy policy : new AsyncChainPolicy[]{
+                    new AsyncChainPolicy(sync, async, Set.of(String.class), Collections.emptyMap()),
+                    new AsyncChainPolicy(sync, async, Collections.emptySet(), Collections.emptyMap())}) {
+                ChainAggregate actual = chainFactory.runBatchAsync(input, roots, null, policy, pool).get(30, TimeUnit.SECONDS);
+
+                assertEquals(expected.getTotal(), actual.getTotal());
+                assertEquals(expected.getCount(ReflectionResult.Type.SUCCESS), actual.getCount(ReflectionResult.Type.SUCCESS));
+                assertEquals(expected.getCount(ReflectionResult.Type.UNKNOWN_REFERENCE), actual.getCount(ReflectionResult.Type.UNKNOWN_REFERENCE));
+                assertEquals(expected.getMin(), actual.getMin());
+                assertEquals(expected.getMax(), actual.getMax());
+                assertEquals(expected.getSum(), actual.getSum());
+                assertEquals(expected.getDistinctValues().size(), actual.getDistinctValues().size());
+                assertEquals(expected.getUntrackedValueCount(), actual.getUntrackedValueCount());
+            }
+        } finally {
+            sync.shutdownNow();
+            async.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void parallelBatchOnlySplitsSafeChains() throws Exception {
+        List<ReflectionChainTest.ThreadProbe> roots = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            roots.add(new ReflectionChainTest.ThreadProbe());
+        }
+
+        ExecutorService sync = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-sync"));
+        ExecutorService async = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-async"));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            String[] input = {"threadName()"};
+
+            // unsafe chains run the whole remainder in one sync task rather than a task per step
+            AtomicInteger syncTasks = new AtomicInteger();
+            Executor countingSync = task -> {
+                syncTasks.incrementAndGet();
+                sync.execute(task);
+            };
+
+            AsyncChainPolicy unsafe = new AsyncChainPolicy(countingSync, async, Collections.emptySet(), Collections.emptyMap());
+            ChainAggregate onSync = chainFactory.runBatchAsync(input, roots, null, unsafe, pool).get(30, TimeUnit.SECONDS);
+            assertEquals(Set.of("test-sync"), onSync.getDistinctValues().keySet());
+            assertEquals(roots.size(), onSync.getCount(ReflectionResult.Type.SUCCESS));
+            assertTrue(syncTasks.get() <= 3, "sync tasks: " + syncTasks.get());
+
+            AsyncChainPolicy safe = new AsyncChainPolicy(sync, async, Set.of(ReflectionChainTest.ThreadProbe.class), Collections.emptyMap());
+            ChainAggregate onPool = chainFactory.runBatchAsync(input, roots, null, safe, pool).get(30, TimeUnit.SECONDS);
+            assertEquals(roots.size(), onPool.getCount(ReflectionResult.Type.SUCCESS));
+            assertFalse(onPool.getDistinctValues().containsKey("test-sync"));
+            assertTrue(onPool.getDistinctValues().keySet().stream().anyMatch(name -> ((String) name).startsWith("ForkJoinPool")));
+        } finally {
+            sync.shutdownNow();
+            async.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+}
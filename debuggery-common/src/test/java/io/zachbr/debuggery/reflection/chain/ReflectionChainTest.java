@@ -25,6 +25,8 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -136,4 +138,313 @@ public class ReflectionChainTest {
         assertTrue(out.toLowerCase().contains("null"));
         assertTrue(out.toLowerCase().contains(nullMethodName.toLowerCase()));
     }
+
+    @Test
+    public void cachedPlanMatchesFreshChain() throws NoSuchMethodException {
+        Method subClassGet = ReflTestClass.class.getMethod("getSubClass");
+        Method subClassGetNum = ReflTestClass.ReflSubClass.class.getMethod("get1234", int.class);
+        String[] input = new String[]{ReflectionUtil.getMethodId(subClassGet), ReflectionUtil.getMethodId(subClassGetNum), "5"};
+
+        ReflTestClass instance = new ReflTestClass(1, 2, 3);
+        ReflectionResult fresh = chainFactory.runChain(input, instance, null);
+        assertEquals(1, chainFactory.getCachedPlanCount());
+
+        ReflectionResult planned = chainFactory.runChain(input, instance, null);
+        assertEquals(1, chainFactory.getCachedPlanCount());
+
+        assertSame(ReflectionResult.Type.SUCCESS, planned.getType());
+        assertEquals(typeHandler.getOutputFor(fresh.getEndingInstance()), typeHandler.getOutputFor(planned.getEndingInstance()));
+    }
+
+    @Test
+    public void cachedPlanFallsBackOnDifferentRuntimeClass() {
+        // same root class and input, but the first call returns a different type each time
+        String[] input = new String[]{"get(int)", "0", "toString()"};
+
+        List<Object> strings = new ArrayList<>(Collections.singletonList("taco"));
+        ReflectionResult first = chainFactory.runChain(input, strings, null);
+        assertSame(ReflectionResult.Type.SUCCESS, first.getType());
+        assertEquals("taco", first.getEndingInstance());
+
+        List<Object> numbers = new ArrayList<>(Collections.singletonList(1234));
+        ReflectionResult second = chainFactory.runChain(input, numbers, null);
+        assertSame(ReflectionResult.Type.SUCCESS, second.getType());
+        assertEquals("1234", second.getEndingInstance());
+    }
+
+    @Test
+    public void planNotCachedWhenRootCantSeeItsClasses() throws NoSuchMethodException {
+        String[] input = new String[]{"get(int)", "0", ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"))};
+
+        // ArrayList comes from the bootstrap loader, which can't see the test classes the chain reaches
+        List<Object> roots = new ArrayList<>(Collections.singletonList(new ReflTestClass(1, 2, 3)));
+        ReflectionResult result = chainFactory.runChain(input, roots, null);
+        assertSame(ReflectionResult.Type.SUCCESS, result.getType());
+        assertEquals(0, chainFactory.getCachedPlanCount());
+
+        chainFactory.runChain(new String[]{"get(int)", "0", "hashCode()"}, roots, null);
+        chainFactory.runChain(new String[]{"getSubClass()"}, new ReflTestClass(1, 2, 3), null);
+        assertEquals(1, chainFactory.getCachedPlanCount());
+
+        chainFactory.clearPlanCache();
+        assertEquals(0, chainFactory.getCachedPlanCount());
+    }
+
+    @Test
+    public void cachedPlanReportsSameErrors() throws NoSuchMethodException {
+        Method alwaysReturnsNull = ReflTestClass.class.getMethod("alwaysReturnsNull");
+        String[] input = new String[]{ReflectionUtil.getMethodId(alwaysReturnsNull)};
+
+        ReflTestClass instance = new ReflTestClass(1, 2, 3);
+        ReflectionResult fresh = chainFactory.runChain(input, instance, null);
+        ReflectionResult planned = chainFactory.runChain(input, instance, null);
+
+        assertSame(ReflectionResult.Type.NULL_REFERENCE, planned.getType());
+        assertEquals(fresh, planned);
+    }
+
+    @Test
+    public void asyncChainRunsUnsafeStepsOnSyncExecutor() throws Exception {
+        ExecutorService sync = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-sync"));
+        ExecutorService async = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-async"));
+
+        try {
+            String selfId = ReflectionUtil.getMethodId(ThreadProbe.class.getMethod("self"));
+            String threadNameId = ReflectionUtil.getMethodId(ThreadProbe.class.getMethod("threadName"));
+            String[] input = new String[]{selfId, threadNameId};
+
+            AsyncChainPolicy onlySelfSafe = new AsyncChainPolicy(sync, async, Collections.emptySet(),
+                    Map.of(ThreadProbe.class, Set.of("self")));
+            ReflectionResult unsafeResult = chainFactory.runChainAsync(input, new ThreadProbe(), null, onlySelfSafe).get(10, TimeUnit.SECONDS);
+            assertSame(ReflectionResult.Type.SUCCESS, unsafeResult.getType());
+            assertEquals("test-sync", unsafeResult.getEndingInstance());
+
+            AsyncChainPolicy allSafe = new AsyncChainPolicy(sync, async, Set.of(ThreadProbe.class), Collections.emptyMap());
+            ReflectionResult safeResult = chainFactory.runChainAsync(input, new ThreadProbe(), null, allSafe).get(10, TimeUnit.SECONDS);
+            assertSame(ReflectionResult.Type.SUCCESS, safeResult.getType());
+            assertEquals("test-async", safeResult.getEndingInstance());
+        } finally {
+            sync.shutdownNow();
+            async.shutdownNow();
+        }
+    }
+
+    @Test
+    public void stepsWithLiveInputsRunOnSyncExecutor() throws Exception {
+        Executor direct = Runnable::run;
+        AsyncChainPolicy policy = new AsyncChainPolicy(direct, direct, Set.of(ThreadProbe.class), Collections.emptyMap());
+
+        assertTrue(policy.isAsyncSafe(ThreadProbe.class, ThreadProbe.class.getMethod("threadName")));
+        assertTrue(policy.isAsyncSafe(ThreadProbe.class, ThreadProbe.class.getMethod("unbox", Integer.class)));
+        assertTrue(policy.isAsyncSafe(ThreadProbe.class, ThreadProbe.class.getMethod("echo", String.class, int[].class)));
+        // arguments of any other type may be looked up from live state, whatever the receiver
+        assertFalse(policy.isAsyncSafe(ThreadProbe.class, ThreadProbe.class.getMethod("describe", Object.class)));
+    }
+
+    @Test
+    public void onlySafeResultsFormattedAsync() {
+        Executor direct = Runnable::run;
+        AsyncChainPolicy policy = new AsyncChainPolicy(direct, direct, Set.of(String.class, Number.class), Collections.emptyMap());
+
+        assertTrue(policy.isAsyncSafe(null));
+        assertTrue(policy.isAsyncSafe("taco"));
+        assertTrue(policy.isAsyncSafe(5L));
+        assertTrue(policy.isAsyncSafe(new int[][]{{1}}));
+        assertTrue(policy.isAsyncSafe(new String[]{"taco"}));
+        assertFalse(policy.isAsyncSafe(new ThreadProbe()));
+        assertFalse(policy.isAsyncSafe(new ThreadProbe[0]));
+        assertFalse(policy.isAsyncSafe(new ArrayList<>(List.of("taco"))));
+    }
+
+    @Test
+    public void asyncChainMatchesSyncResults() throws Exception {
+        ExecutorService sync = Executors.newSingleThreadExecutor();
+        ExecutorService async = Executors.newSingleThreadExecutor();
+
+        try {
+            AsyncChainPolicy policy = new AsyncChainPolicy(sync, async, Collections.emptySet(), Collections.emptyMap());
+            String methodName = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getNumbersPlusParam", int.class));
+
+            for (String[] input : new String[][]{{methodName, "4"}, {methodName, "not a number"}, {"doesNotExist()"}}) {
+                ReflectionResult expected = chainFactory.runChain(input, new ReflTestClass(1, 2, 3), null);
+                ReflectionResult actual = chainFactory.runChainAsync(input, new ReflTestClass(1, 2, 3), null, policy).get(10, TimeUnit.SECONDS);
+
+                assertSame(expected.getType(), actual.getType());
+                assertEquals(typeHandler.getOutputFor(expected.getEndingInstance()), typeHandler.getOutputFor(actual.getEndingInstance()));
+                assertEquals(expected.getReason(), actual.getReason());
+            }
+        } finally {
+            sync.shutdownNow();
+            async.shutdownNow();
+        }
+    }
+
+    @Test
+    public void chainStopsWhenOutOfTime() throws Exception {
+        String subClassGetterName = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"));
+        String subClassGetNumName = ReflectionUtil.getMethodId(ReflTestClass.ReflSubClass.class.getMethod("get1234", int.class));
+        String[] input = new String[]{subClassGetterName, subClassGetNumName, "5"};
+
+        chainFactory.setTimeBudget(1);
+        ReflectionResult result = chainFactory.runChain(input, new ReflTestClass(1, 2, 3), null);
+
+        assertSame(ReflectionResult.Type.TIMED_OUT, result.getType());
+        assertTrue(result.getEndingInstance() instanceof ReflTestClass.ReflSubClass);
+        assertNotNull(result.getReason());
+
+        // a single step always runs, however small the budget
+        result = chainFactory.runChain(new String[]{subClassGetterName}, new ReflTestClass(1, 2, 3), null);
+        assertSame(ReflectionResult.Type.SUCCESS, result.getType());
+
+        chainFactory.setTimeBudget(0);
+        result = chainFactory.runChain(input, new ReflTestClass(1, 2, 3), null);
+        assertSame(ReflectionResult.Type.SUCCESS, result.getType());
+
+        assertThrows(IllegalArgumentException.class, () -> chainFactory.setTimeBudget(-1));
+    }
+
+    @Test
+    public void budgetIgnoresWaitForSyncExecutor() throws Exception {
+        ExecutorService sync = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-sync"));
+        ExecutorService async = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-async"));
+
+        // every task waits as if for the next tick before it runs
+        Executor delayedSync = task -> sync.execute(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            task.run();
+        });
+
+        try {
+            String selfId = ReflectionUtil.getMethodId(ThreadProbe.class.getMethod("self"));
+            String threadNameId = ReflectionUtil.getMethodId(ThreadProbe.class.getMethod("threadName"));
+            String[] input = new String[]{selfId, selfId, selfId, selfId, threadNameId};
+
+            AsyncChainPolicy policy = new AsyncChainPolicy(delayedSync, async, Collections.emptySet(), Collections.emptyMap());
+            chainFactory.setTimeBudget(TimeUnit.MILLISECONDS.toNanos(50));
+            ReflectionResult result = chainFactory.runChainAsync(input, new ThreadProbe(), null, policy).get(10, TimeUnit.SECONDS);
+
+            assertSame(ReflectionResult.Type.SUCCESS, result.getType(), result.getReason());
+            assertEquals("test-sync", result.getEndingInstance());
+        } finally {
+            chainFactory.setTimeBudget(0);
+            sync.shutdownNow();
+            async.shutdownNow();
+        }
+    }
+
+    @Test
+    public void interruptedChainIsCancelled() throws Exception {
+        String subClassGetterName = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"));
+        String subClassGetNumName = ReflectionUtil.getMethodId(ReflTestClass.ReflSubClass.class.getMethod("get1234", int.class));
+        String[] input = new String[]{subClassGetterName, subClassGetNumName, "5"};
+
+        Thread.currentThread().interrupt();
+        ReflectionResult result;
+        try {
+            result = chainFactory.runChain(input, new ReflTestClass(1, 2, 3), null);
+        } finally {
+            // clear the flag so it doesn't leak into other tests
+            Thread.interrupted();
+        }
+
+        assertSame(ReflectionResult.Type.TIMED_OUT, result.getType());
+        assertTrue(result.getEndingInstance() instanceof ReflTestClass.ReflSubClass);
+    }
+
+    @Test
+    public void timingsRecordedOnlyWhenAsked() throws Exception {
+        String subClassGetterName = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"));
+        String subClassGetNumName = ReflectionUtil.getMethodId(ReflTestClass.ReflSubClass.class.getMethod("get1234", int.class));
+        String[] input = new String[]{subClassGetterName, subClassGetNumName, "5"};
+
+        assertNull(chainFactory.runChain(input, new ReflTestClass(1, 2, 3), null).getTimings());
+
+        ReflectionResult result = chainFactory.runChain(input, new ReflTestClass(1, 2, 3), null, true);
+        ChainTimings timings = result.getTimings();
+        assertNotNull(timings);
+        assertEquals(2, timings.getSteps().size());
+        assertEquals("getSubClass", timings.getSteps().get(0).getMethodName());
+        assertEquals("get1234", timings.getSteps().get(1).getMethodName());
+        // the untimed run above left a plan behind
+        assertTrue(timings.getSteps().get(0).isPlanned());
+        assertEquals(-1, timings.getOutputNanos());
+
+        for (ChainTimings.Step step : timings.getSteps()) {
+            assertTrue(step.getResolveNanos() >= 0 && step.getArgsNanos() >= 0 && step.getInvokeNanos() >= 0);
+        }
+
+        timings.recordOutput(2_500_000, 64);
+        assertEquals(2_500_000, timings.getOutputNanos());
+        assertTrue(timings.getTotalNanos() >= 2_500_000);
+        assertTrue(timings.format().contains("output: 2.500ms"));
+    }
+
+    @Test
+    public void timingsKeptForFailedSteps() throws Exception {
+        String methodName = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getNumbersPlusParam", int.class));
+
+        ReflectionResult result = chainFactory.runChain(new String[]{methodName, "not a number"}, new ReflTestClass(1, 2, 3), null, true);
+        assertSame(ReflectionResult.Type.INPUT_ERROR, result.getType());
+        assertNotNull(result.getTimings());
+        assertEquals(1, result.getTimings().getSteps().size());
+        assertEquals(0, result.getTimings().getSteps().get(0).getInvokeNanos());
+    }
+
+    @Test
+    public void resultsCounted() throws Exception {
+        String methodName = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getNumbersPlusParam", int.class));
+
+        chainFactory.runChain(new String[]{methodName, "4"}, new ReflTestClass(1, 2, 3), null);
+        chainFactory.runChain(new String[]{methodName, "4"}, new ReflTestClass(1, 2, 3), null);
+        chainFactory.runChain(new String[]{"doesNotExist()"}, new ReflTestClass(1, 2, 3), null);
+
+        assertEquals(3, chainFactory.getChainCount());
+        assertEquals(2, chainFactory.getResultCount(ReflectionResult.Type.SUCCESS));
+        assertEquals(1, chainFactory.getResultCount(ReflectionResult.Type.UNKNOWN_REFERENCE));
+        assertEquals(3, chainFactory.getChainLatency().getCount());
+    }
+
+    @Test
+    public void argumentsThatDontFitAreMismatched() throws Exception {
+        String plusParamId = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getNumbersPlusParam", int.class));
+        String unboxId = ReflectionUtil.getMethodId(ThreadProbe.class.getMethod("unbox", Integer.class));
+
+        // null can't be unboxed into the int parameter, the method is never entered
+        ReflectionResult result = chainFactory.runChain(new String[]{plusParamId, "\\null\\"}, new ReflTestClass(1, 2, 3), null);
+        assertSame(ReflectionResult.Type.ARG_MISMATCH, result.getType());
+        assertTrue(result.getReason().contains("getNumbersPlusParam"));
+
+        // the same exception thrown from inside the method is still the method's own failure
+        result = chainFactory.runChain(new String[]{unboxId, "\\null\\"}, new ThreadProbe(), null);
+        assertSame(ReflectionResult.Type.UNHANDLED_EXCEPTION, result.getType());
+        assertTrue(result.getException() instanceof NullPointerException);
+    }
+
+    public static class ThreadProbe {
+        public ThreadProbe self() {
+            return this;
+        }
+
+        public String threadName() {
+            return Thread.currentThread().getName();
+        }
+
+        public int unbox(Integer value) {
+            return value;
+        }
+
+        public String echo(String value, int[] times) {
+            return value.repeat(times.length);
+        }
+
+        public String describe(Object value) {
+            return String.valueOf(value);
+        }
+    }
 }
@@ -19,10 +19,12 @@ package io.zachbr.debuggery.reflection.types;
 
 import io.zachbr.debuggery.Logger;
 import io.zachbr.debuggery.TestLoggerImpl;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
 import io.zachbr.debuggery.reflection.types.implementations.Pair;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -154,4 +156,67 @@ public class CommonOutputHandlerTest {
             assertTrue(out.contains(val));
         }
     }
+
+    @Test
+    public void testUnboundedFormatsUnchanged() {
+        assertEquals("{1, 2, 3}", typeHandler.getOutputFor(new int[]{1, 2, 3}));
+        assertEquals("{a, b}", typeHandler.getOutputFor(new char[]{'a', 'b'}));
+        assertEquals("{x, null, {true, false}}", typeHandler.getOutputFor(new Object[]{"x", null, new boolean[]{true, false}}));
+        assertEquals("{1.5, 2.0}", typeHandler.getOutputFor(List.of(1.5D, 2.0D)));
+
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        assertEquals("{[one, 1]\n[two, 2]}", typeHandler.getOutputFor(map));
+
+        // unbounded budgets must match the plain output exactly
+        assertEquals(typeHandler.getOutputFor(map), typeHandler.getOutputFor(map, OutputBudget.unbounded()));
+        assertEquals(typeHandler.getOutputFor(new long[]{1, 2}), typeHandler.getOutputFor(new long[]{1, 2}, OutputBudget.unbounded()));
+    }
+
+    @Test
+    public void testElementBudget() {
+        int[] ints = new int[1000];
+        Arrays.fill(ints, 7);
+
+        assertEquals("{7, 7, 7, ... 997 more}", typeHandler.getOutputFor(ints, new OutputBudget(Integer.MAX_VALUE, 3)));
+        assertEquals("{... 1000 more}", typeHandler.getOutputFor(ints, new OutputBudget(Integer.MAX_VALUE, 0)));
+
+        List<String> strings = Collections.nCopies(50, "s");
+        assertEquals("{s, s, ... 48 more}", typeHandler.getOutputFor(strings, new OutputBudget(Integer.MAX_VALUE, 2)));
+
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("a", "b");
+        map.put("c", "d");
+        map.put("e", "f");
+        assertEquals("{[a, b]\n... 2 more}", typeHandler.getOutputFor(map, new OutputBudget(Integer.MAX_VALUE, 1)));
+    }
+
+    @Test
+    public void testCharacterBudget() {
+        assertEquals("abc...", typeHandler.getOutputFor("abcdef", new OutputBudget(3, Integer.MAX_VALUE)));
+        assertEquals("abcdef", typeHandler.getOutputFor("abcdef", new OutputBudget(6, Integer.MAX_VALUE)));
+
+        List<String> strings = List.of("aaaa", "bbbb", "cccc", "dddd");
+        String out = typeHandler.getOutputFor(strings, new OutputBudget(8, Integer.MAX_VALUE));
+        assertEquals("{aaaa, bb... 2 more}", out);
+
+        // nested containers still close themselves
+        List<List<String>> nested = List.of(strings, strings);
+        out = typeHandler.getOutputFor(nested, new OutputBudget(8, Integer.MAX_VALUE));
+        assertEquals("{{aaaa, bb... 2 more}... 1 more}", out);
+    }
+
+    @Test
+    public void testTimeLimit() {
+        List<String> strings = Collections.nCopies(50, "s");
+
+        OutputBudget expired = OutputBudget.unbounded().withTimeLimit(0);
+        assertEquals("{... 50 more}", typeHandler.getOutputFor(strings, expired));
+        assertTrue(expired.isTimedOut());
+
+        OutputBudget generous = OutputBudget.unbounded().withTimeLimit(TimeUnit.MINUTES.toNanos(1));
+        assertEquals(typeHandler.getOutputFor(strings), typeHandler.getOutputFor(strings, generous));
+        assertFalse(generous.isTimedOut());
+    }
 }
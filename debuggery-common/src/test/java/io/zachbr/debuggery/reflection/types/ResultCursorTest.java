@@ -0,0 +1,96 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.reflection.types;
+
+import io.zachbr.debuggery.TestLoggerImpl;
+import io.zachbr.debuggery.reflection.types.handlers.base.OutputBudget;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCursorTest {
+    private final TypeHandler typeHandler = new TypeHandler(new TestLoggerImpl());
+
+    @Test
+    public void testArrayPages() {
+        int[] values = new int[25];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 10;
+        }
+
+        ResultCursor cursor = new ResultCursor(typeHandler, values, 10);
+        assertEquals(25, cursor.getElementCount());
+        assertEquals(3, cursor.getPageCount());
+
+        String page = cursor.formatPage(3, OutputBudget.unbounded());
+        assertEquals("Page 3/3 (25 elements)\n[20] 200\n[21] 210\n[22] 220\n[23] 230\n[24] 240", page);
+        assertThrows(IllegalArgumentException.class, () -> cursor.formatPage(4, OutputBudget.unbounded()));
+        assertThrows(IllegalArgumentException.class, () -> cursor.formatPage(0, OutputBudget.unbounded()));
+    }
+
+    @Test
+    public void testCollectionAndMapPages() {
+        Set<String> set = new LinkedHashSet<>(List.of("a", "b", "c"));
+        assertEquals("Page 2/2 (3 elements)\n[2] c", new ResultCursor(typeHandler, set, 2).formatPage(2, OutputBudget.unbounded()));
+
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        assertEquals("Page 1/1 (2 elements)\n[0] [one, 1]\n[1] [two, 2]", new ResultCursor(typeHandler, map, 5).formatPage(1, OutputBudget.unbounded()));
+
+        ResultCursor empty = new ResultCursor(typeHandler, Collections.emptyList(), 5);
+        assertEquals(1, empty.getPageCount());
+        assertEquals("Page 1/1 (0 elements)", empty.formatPage(1, OutputBudget.unbounded()));
+    }
+
+    @Test
+    public void testOnlyWindowIsFormatted() {
+        List<Object> formatted = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final int id = i;
+            values.add(new Object() {
+                @Override
+                public String toString() {
+                    formatted.add(id);
+                    return "element " + id;
+                }
+            });
+        }
+
+        ResultCursor cursor = new ResultCursor(typeHandler, values, 10);
+        cursor.formatPage(5, OutputBudget.unbounded());
+        assertEquals(List.of(40, 41, 42, 43, 44, 45, 46, 47, 48, 49), formatted);
+    }
+
+    @Test
+    public void testPageRespectsBudget() {
+        ResultCursor cursor = new ResultCursor(typeHandler, new long[50], 20);
+        assertEquals("Page 1/3 (50 elements)\n[0] 0\n[1] 0\n... 18 more", cursor.formatPage(1, new OutputBudget(Integer.MAX_VALUE, 2)));
+    }
+
+    @Test
+    public void ensureNonPageableRejected() {
+        assertFalse(ResultCursor.isPageable(null));
+        assertFalse(ResultCursor.isPageable("string"));
+        assertTrue(ResultCursor.isPageable(new Object[0]));
+        assertThrows(IllegalArgumentException.class, () -> new ResultCursor(typeHandler, "string", 10));
+    }
+}
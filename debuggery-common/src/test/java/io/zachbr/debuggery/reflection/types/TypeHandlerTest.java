@@ -62,6 +62,23 @@ public class TypeHandlerTest {
         assertEquals(0, offending.size());
     }
 
+    @Test
+    public void resolvedHandlersCanBeCleared() throws InputException {
+        Class[] requestedTypes = {AnEnum.class};
+        List<String> input = Collections.singletonList("VAL_1");
+
+        typeHandler.instantiateTypes(requestedTypes, input);
+        long resolutions = typeHandler.getHandlerResolutionCount();
+        typeHandler.instantiateTypes(requestedTypes, input);
+        assertEquals(resolutions, typeHandler.getHandlerResolutionCount());
+
+        int generation = typeHandler.getHandlerGeneration();
+        typeHandler.clearResolvedHandlers();
+        assertEquals(AnEnum.VAL_1, typeHandler.instantiateTypes(requestedTypes, input)[0]);
+        assertTrue(typeHandler.getHandlerResolutionCount() > resolutions);
+        assertEquals(generation, typeHandler.getHandlerGeneration());
+    }
+
     @Test
     public void ensurePolymorphicInput() throws InputException {
         // ensures that polymorphic input handlers are functioning correctly
@@ -227,6 +244,53 @@ public class TypeHandlerTest {
         }
     }
 
+    @Test
+    public void ensureResolvedHandlersFollowRegistration() {
+        TypeHandler localHandler = new TypeHandler(logger);
+        ReflTestClass instance = new ReflTestClass(1, 2, 3);
+
+        // prime the lookups with misses first
+        assertNull(localHandler.getIHandlerForClass(ReflTestClass.class));
+        assertEquals(instance.toString(), localHandler.getOutputFor(instance));
+
+        IHandler iHandler = new IHandler() {
+            @NotNull
+            @Override
+            public Object instantiateInstance(String input, Class<?> clazz, @Nullable PlatformSender<?> sender) {
+                return instance;
+            }
+
+            @NotNull
+            @Override
+            public Class<?> getRelevantClass() {
+                return ReflTestClass.class;
+            }
+        };
+
+        OHandler oHandler = new OHandler() {
+            @Override
+            public String getFormattedOutput(Object object) {
+                return "refl test class";
+            }
+
+            @NotNull
+            @Override
+            public Class<?> getRelevantClass() {
+                return ReflTestClass.class;
+            }
+        };
+
+        assertTrue(localHandler.registerHandler(iHandler));
+        assertTrue(localHandler.registerHandler(oHandler));
+        assertSame(iHandler, localHandler.getIHandlerForClass(ReflTestClass.class));
+        assertEquals("refl test class", localHandler.getOutputFor(instance));
+
+        assertTrue(localHandler.removeHandler(iHandler));
+        assertTrue(localHandler.removeHandler(oHandler));
+        assertNull(localHandler.getIHandlerForClass(ReflTestClass.class));
+        assertEquals(instance.toString(), localHandler.getOutputFor(instance));
+    }
+
     @Test
     public void ensureThrowsOnNoSuchIHandler() {
         // verify that if we have an unknown type requested, it always throws
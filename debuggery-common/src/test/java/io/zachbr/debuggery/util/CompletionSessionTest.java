@@ -0,0 +1,93 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import io.zachbr.debuggery.reflection.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompletionSessionTest {
+    private final MethodMapProvider provider = new MethodMapProvider();
+    private final MethodMap rootMap = provider.getMethodMapFor(ReflTestClass.class);
+
+    @Test
+    public void testCompletions() throws NoSuchMethodException {
+        CompletionSession session = new CompletionSession(provider);
+        String subClass = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"));
+        String plusParam = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getNumbersPlusParam", int.class));
+
+        assertEquals(idsStartingWith(ReflTestClass.class, "getS"), session.complete(List.of("getS"), rootMap));
+        assertEquals(idsStartingWith(ReflTestClass.ReflSubClass.class, "get"), session.complete(List.of(subClass, "get"), rootMap));
+
+        // method arguments have no completions, but the chain carries on after them
+        assertEquals(Collections.emptyList(), session.complete(List.of(plusParam, "4"), rootMap));
+        assertEquals(idsStartingWith(int[].class, ""), session.complete(List.of(plusParam, "4", ""), rootMap));
+
+        // unknown tokens leave the chain where it was
+        assertEquals(idsStartingWith(ReflTestClass.class, "al"), session.complete(List.of("nope", "al"), rootMap));
+        assertEquals(Collections.emptyList(), session.complete(Collections.emptyList(), rootMap));
+    }
+
+    @Test
+    public void ensureIncrementalMatchesFresh() throws NoSuchMethodException {
+        CompletionSession session = new CompletionSession(provider);
+        String subClass = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"));
+        String get1234 = ReflectionUtil.getMethodId(ReflTestClass.ReflSubClass.class.getMethod("get1234", int.class));
+
+        // simulate typing a chain a character at a time, with a correction part way through
+        List<List<String>> requests = new ArrayList<>();
+        for (String typed : new String[]{"g", "ge", "getSub", subClass}) {
+            requests.add(List.of(typed));
+        }
+        requests.add(List.of(subClass, ""));
+        requests.add(List.of(subClass, "get"));
+        requests.add(List.of("getNumbers", ""));
+        requests.add(List.of(subClass, get1234));
+        requests.add(List.of(subClass, get1234, "5"));
+        requests.add(List.of(subClass, get1234, "5", "clo"));
+
+        for (List<String> request : requests) {
+            assertEquals(new CompletionSession(provider).complete(request, rootMap), session.complete(request, rootMap), request.toString());
+        }
+    }
+
+    @Test
+    public void ensureRootChangeResets() throws NoSuchMethodException {
+        CompletionSession session = new CompletionSession(provider);
+        String subClass = ReflectionUtil.getMethodId(ReflTestClass.class.getMethod("getSubClass"));
+        List<String> request = List.of(subClass, "");
+
+        assertEquals(idsStartingWith(ReflTestClass.ReflSubClass.class, ""), session.complete(request, rootMap));
+
+        // the same input against another root must not reuse the old resolution
+        MethodMap otherRoot = provider.getMethodMapFor(String.class);
+        assertEquals(idsStartingWith(String.class, ""), session.complete(List.of(""), otherRoot));
+        assertEquals(idsStartingWith(String.class, ""), session.complete(request, otherRoot));
+    }
+
+    private List<String> idsStartingWith(Class<?> clazz, String prefix) {
+        return provider.getMethodMapFor(clazz).getAllIds().stream()
+                .filter(id -> id.toLowerCase().startsWith(prefix.toLowerCase()))
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DoubleRingBufferTest {
+
+    @Test
+    public void ensureOldestValuesOverwritten() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(3);
+        assertEquals(0, buffer.size());
+        assertThrows(NoSuchElementException.class, buffer::getLatest);
+        assertTrue(Double.isNaN(buffer.mean()));
+
+        buffer.add(1);
+        buffer.add(2);
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.get(0));
+        assertEquals(2, buffer.getLatest());
+
+        buffer.add(3);
+        buffer.add(4);
+        buffer.add(5);
+        assertEquals(3, buffer.size());
+        assertEquals(3, buffer.capacity());
+        assertEquals(3, buffer.get(0));
+        assertEquals(4, buffer.get(1));
+        assertEquals(5, buffer.getLatest());
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(3));
+    }
+
+    @Test
+    public void ensureStatisticsCoverKeptValues() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(4);
+        for (double value : new double[]{100, -5, 2, 8, 3, 7}) {
+            buffer.add(value);
+        }
+
+        // 100 and -5 have been overwritten
+        assertEquals(2, buffer.min());
+        assertEquals(8, buffer.max());
+        assertEquals(5, buffer.mean());
+
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertTrue(Double.isNaN(buffer.max()));
+    }
+}
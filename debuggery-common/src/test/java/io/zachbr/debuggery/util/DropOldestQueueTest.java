@@ -0,0 +1,120 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DropOldestQueueTest {
+
+    @Test
+    public void ensureFifoOrder() {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(4);
+        assertNull(queue.poll());
+
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.poll());
+
+        // wraps around the ring
+        queue.offer(4);
+        queue.offer(5);
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drainTo(drained, 10));
+        assertEquals(List.of(3, 4, 5), drained);
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void ensureOldestDroppedWhenFull() {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(3);
+        assertEquals(4, queue.capacity());
+
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+
+        assertEquals(6, queue.getDroppedCount());
+        assertEquals(4, queue.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(2, queue.drainTo(drained, 10));
+        assertEquals(List.of(6, 7, 8, 9), drained);
+
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+        assertThrows(IllegalArgumentException.class, () -> new DropOldestQueue<>(0));
+    }
+
+    @Test
+    public void ensureNothingLostUnderContention() throws Exception {
+        final int producers = 4;
+        final int perProducer = 20_000;
+        DropOldestQueue<long[]> queue = new DropOldestQueue<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final long producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < perProducer; i++) {
+                        queue.offer(new long[]{producer, i});
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            long received = 0;
+            long[] lastSeen = new long[producers];
+            Arrays.fill(lastSeen, -1);
+
+            boolean done = false;
+            while (!done) {
+                done = futures.stream().allMatch(Future::isDone);
+                long[] element;
+                while ((element = queue.poll()) != null) {
+                    // each producer's elements still arrive in the order they were offered
+                    int producer = (int) element[0];
+                    assertTrue(element[1] > lastSeen[producer]);
+                    lastSeen[producer] = element[1];
+                    received++;
+                }
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals((long) producers * perProducer, received + queue.getDroppedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
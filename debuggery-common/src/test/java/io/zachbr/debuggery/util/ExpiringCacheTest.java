@@ -0,0 +1,63 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void ensureEntriesExpire() {
+        AtomicLong clock = new AtomicLong();
+        ExpiringCache<String, String> cache = new ExpiringCache<>(100, 10, clock::get);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+
+        // touching "a" keeps it alive past "b"
+        clock.set(60 * MILLIS);
+        assertEquals("1", cache.get("a"));
+
+        clock.set(120 * MILLIS);
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+
+        clock.set(300 * MILLIS);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void ensureBoundedSize() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(60_000, 3);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(0));
+        assertEquals(9, cache.get(9));
+    }
+}
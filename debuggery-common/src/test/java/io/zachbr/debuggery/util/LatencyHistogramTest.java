@@ -0,0 +1,82 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void ensureBucketsCoverEveryValue() {
+        assertEquals(0, LatencyHistogram.getBucketIndex(0));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.getBucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1));
+
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            // buckets are contiguous and each bound maps back to its own bucket
+            assertEquals(LatencyHistogram.getBucketUpperBound(i - 1) + 1, LatencyHistogram.getBucketLowerBound(i));
+            assertEquals(i, LatencyHistogram.getBucketIndex(LatencyHistogram.getBucketLowerBound(i)));
+            assertEquals(i, LatencyHistogram.getBucketIndex(LatencyHistogram.getBucketUpperBound(i)));
+        }
+    }
+
+    @Test
+    public void ensurePercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertTrue(Double.isNaN(histogram.getMean()));
+
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean(), 0.001);
+        assertWithin(5_000_000, histogram.getValueAtPercentile(50));
+        assertWithin(9_900_000, histogram.getValueAtPercentile(99));
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+        assertWithin(1000, histogram.getValueAtPercentile(0));
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void ensureRandomValuesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long value = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE / 2);
+        histogram.record(value);
+        histogram.record(-5); // counted as 0
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertWithin(value, histogram.getValueAtPercentile(100));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 8, "Expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongIntMapTest {
+
+    @Test
+    public void ensureCountsSurviveResize() {
+        LongIntMap map = new LongIntMap(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(25);
+        for (int i = 0; i < 20_000; i++) {
+            long key = ((long) random.nextInt(200) << 32) | (random.nextInt(200) & 0xFFFFFFFFL);
+            int value = map.increment(key);
+            assertEquals((int) expected.merge(key, 1, Integer::sum), value);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals((int) value, map.get(key)));
+        assertEquals(0, map.get(-1L));
+        assertFalse(map.containsKey(-1L));
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    public void ensureTopKeysSorted() {
+        LongIntMap map = new LongIntMap(4);
+        assertArrayEquals(new long[0], map.getTopKeys(10));
+
+        map.add(0L, 3);
+        map.add(-7L, 9);
+        map.add(Long.MAX_VALUE, 1);
+        map.add(42L, 5);
+        map.add(Long.MIN_VALUE, 7);
+
+        assertArrayEquals(new long[]{-7L, Long.MIN_VALUE, 42L}, map.getTopKeys(3));
+        assertArrayEquals(new long[]{-7L, Long.MIN_VALUE, 42L, 0L, Long.MAX_VALUE}, map.getTopKeys(10));
+        assertArrayEquals(new long[0], map.getTopKeys(0));
+        assertThrows(IllegalArgumentException.class, () -> map.getTopKeys(-1));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NearestPointsTest {
+
+    @Test
+    public void ensureNearestNotFirst() {
+        NearestPoints points = new NearestPoints();
+        assertEquals(-1, points.nearest(0, 0, 0, 10));
+
+        points.add(1, 0, 1);
+        points.add(0.2, 0.1, 0);
+        points.add(0, 0, 5); // same x as the target, far away on z
+        assertEquals(1, points.nearest(0, 0, 0, 10));
+        assertEquals(-1, points.nearest(0, 0, 0, 0.1));
+        assertEquals(2, points.nearest(0, 0, 4, 1.5));
+
+        points.clear();
+        assertEquals(0, points.size());
+        assertEquals(-1, points.nearest(0, 0, 0, 10));
+    }
+
+    @Test
+    public void ensureMatchesSortedDistances() {
+        Random random = new Random(24);
+        NearestPoints points = new NearestPoints();
+        double[][] raw = new double[1000][];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = new double[]{random.nextDouble() * 50 - 25, random.nextDouble() * 10, random.nextDouble() * 50 - 25};
+            points.add(raw[i][0], raw[i][1], raw[i][2]);
+        }
+
+        assertEquals(1000, points.size());
+        for (int query = 0; query < 50; query++) {
+            double x = random.nextDouble() * 50 - 25;
+            double y = random.nextDouble() * 10;
+            double z = random.nextDouble() * 50 - 25;
+            int[] expected = IntStream.range(0, raw.length)
+                    .boxed()
+                    .filter(i -> squaredDistance(raw[i], x, y, z) <= 8 * 8)
+                    .sorted(Comparator.comparingDouble(i -> squaredDistance(raw[i], x, y, z)))
+                    .limit(1)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            assertEquals(expected.length == 0 ? -1 : expected[0], points.nearest(x, y, z, 8));
+        }
+    }
+
+    private static double squaredDistance(double[] point, double x, double y, double z) {
+        double dx = point[0] - x;
+        double dy = point[1] - y;
+        double dz = point[2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of Debuggery.
+ *
+ * Debuggery is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Debuggery is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Debuggery.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.zachbr.debuggery.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RayUtilTest {
+
+    @Test
+    public void ensureEntryDistanceReturned() {
+        assertEquals(3.2, RayUtil.getRayIntersection(0.5, 0.5, 0, 1, 0, 0, 3.7, -0.5, -0.3, 4.3, 1.5, 0.3), 1e-9);
+        assertEquals(3.5, RayUtil.getRayIntersection(0.5, 0.5, 0, -1, 0, 0, -4, -0.5, -0.3, -3, 1.5, 0.3), 1e-9);
+        // distances are in multiples of the direction's length
+        assertEquals(1.6, RayUtil.getRayIntersection(0.5, 0.5, 0, 2, 0, 0, 3.7, -0.5, -0.3, 4.3, 1.5, 0.3), 1e-9);
+    }
+
+    @Test
+    public void ensureMissesReported() {
+        // behind the ray
+        assertEquals(-1, RayUtil.getRayIntersection(0.5, 0.5, 0, 1, 0, 0, -4, -0.5, -0.3, -3, 1.5, 0.3));
+        // same x as the ray all the way along, but nowhere near it on z
+        assertEquals(-1, RayUtil.getRayIntersection(0, 1, 0, 1, 0, 0, 4, 0, 10, 5, 2, 11));
+        // parallel to an axis and outside the box on it
+        assertEquals(-1, RayUtil.getRayIntersection(3.5, 0, -7.2, 0, -1, 0, -10, 5, -10, 10, 6, 10));
+    }
+
+    @Test
+    public void ensureOriginInsideHitsAtZero() {
+        assertEquals(0, RayUtil.getRayIntersection(0, 5.5, 0, 1, 0, 1, -10, 5, -10, 10, 6, 10));
+        assertEquals(5, RayUtil.getRayIntersection(3.5, 0, -7.2, 0, 1, 0, -10, 5, -10, 10, 6, 10), 1e-9);
+    }
+}
@@ -18,14 +18,20 @@
 package io.zachbr.debuggery;
 
 import com.google.inject.Inject;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.PluginContainer;
+import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
 import io.zachbr.debuggery.commands.*;
 import io.zachbr.debuggery.commands.base.CommandBase;
+import io.zachbr.debuggery.commands.base.CommandReflection;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Plugin(id = "debuggery",
         name = "Debuggery",
@@ -34,20 +40,79 @@ import java.util.Map;
         authors = {"Z750"},
         url = "https://github.com/zachbr/Debuggery")
 public class DebuggeryVelocity extends DebuggeryBase {
+    private static final boolean METHOD_MAP_CACHE = !Boolean.getBoolean("debuggery.methodmapcache.disabled");
     private final ProxyServer server;
+    private final Path methodMapStoreFile;
     private final Map<String, CommandBase> commands = new HashMap<>();
     private PluginContainer container;
 
     @Inject
-    DebuggeryVelocity(ProxyServer server, org.slf4j.Logger logger) {
+    DebuggeryVelocity(ProxyServer server, org.slf4j.Logger logger, @DataDirectory Path dataDirectory) {
         super(new VelocityLogger(logger));
         this.server = server;
+        this.methodMapStoreFile = dataDirectory.resolve("method-maps.bin");
+        // no limit unless asked for, a proxy has no tick to protect
+        this.setChainTimeBudget(TimeUnit.MICROSECONDS.toNanos(Math.max(0, Long.getLong("debuggery.chain.timebudget.micros", 0L))));
 
         registerCommand(new ProxyPlayerCommand(this));
         registerCommand(new ProxyServerCommand(this));
         registerCommand(new ServerConnectionCommand(this));
     }
 
+    @Subscribe
+    public void onProxyInitialize(ProxyInitializeEvent event) {
+        // the store is keyed by our plugin version, which can't be looked up until we're fully registered
+        if (METHOD_MAP_CACHE) {
+            loadMethodMapStore(methodMapStoreFile, server.getClass());
+        }
+
+        registerMetrics();
+        if (!Boolean.getBoolean("debuggery.warmup.disabled")) {
+            warmUpMethodMaps();
+        }
+    }
+
+    @Subscribe
+    public void onProxyShutdown(ProxyShutdownEvent event) {
+        shutdownBatchPool();
+        unregisterMetrics();
+        if (METHOD_MAP_CACHE) {
+            saveMethodMapStore(methodMapStoreFile, server.getClass());
+        }
+
+        getMethodMapProvider().clearCache();
+        clearChainPlans();
+        getTypeHandler().clearResolvedHandlers();
+    }
+
+    private void warmUpMethodMaps() {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (CommandBase command : commands.values()) {
+            if (command instanceof CommandReflection) {
+                classes.add(((CommandReflection) command).getReflectionClass());
+            }
+        }
+
+        // chains reflect against the runtime class, not the API interface
+        classes.add(server.getClass());
+
+        // extra classes can be supplied as a comma separated list
+        for (String className : System.getProperty("debuggery.warmup.classes", "").split(",")) {
+            className = className.trim();
+            if (className.isEmpty()) {
+                continue;
+            }
+
+            try {
+                classes.add(Class.forName(className, false, this.getClass().getClassLoader()));
+            } catch (ClassNotFoundException ex) {
+                getLogger().warn("Ignoring unknown warm-up class " + className);
+            }
+        }
+
+        this.warmUpMethodMaps(classes);
+    }
+
     @Override
     String getPluginVersion() {
         if (this.container == null) {
@@ -39,8 +39,28 @@ public class VelocityLogger implements Logger {
         platformLogger.error(str);
     }
 
+    @Override
+    public boolean isDebugEnabled() {
+        return platformLogger.isDebugEnabled();
+    }
+
     @Override
     public void debug(String str) {
         platformLogger.debug(str);
     }
+
+    @Override
+    public void debug(String pattern, Object arg) {
+        platformLogger.debug(pattern, arg);
+    }
+
+    @Override
+    public void debug(String pattern, Object arg1, Object arg2) {
+        platformLogger.debug(pattern, arg1, arg2);
+    }
+
+    @Override
+    public void debug(String pattern, Object arg1, Object arg2, Object arg3) {
+        platformLogger.debug(pattern, arg1, arg2, arg3);
+    }
 }
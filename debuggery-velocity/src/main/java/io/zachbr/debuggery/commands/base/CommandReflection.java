@@ -22,6 +22,7 @@ import com.velocitypowered.api.proxy.Player;
 import io.zachbr.debuggery.DebuggeryVelocity;
 import io.zachbr.debuggery.reflection.MethodMap;
 import io.zachbr.debuggery.reflection.MethodMapProvider;
+import io.zachbr.debuggery.reflection.chain.ChainTimings;
 import io.zachbr.debuggery.reflection.chain.ReflectionResult;
 import io.zachbr.debuggery.reflection.types.InputException;
 import io.zachbr.debuggery.reflection.types.handlers.base.platform.PlatformSender;
@@ -41,9 +42,12 @@ import java.util.*;
  * Base class for all commands that use reflection to dig into Velocity's API
  */
 public abstract class CommandReflection extends CommandBase {
+    private static final String TIME_FLAG = "--time";
     private final DebuggeryVelocity debuggery;
     private final MethodMapProvider mapCache;
     private MethodMap availableMethods = MethodMap.EMPTY;
+    // weak so that sessions go away with the senders they belong to
+    private final Map<CommandSource, CompletionSession> completionSessions = Collections.synchronizedMap(new WeakHashMap<>());
 
     protected CommandReflection(String name, String permission, boolean requiresPlayer, Class<?> clazz, DebuggeryVelocity plugin) {
         super(name, permission, requiresPlayer);
@@ -56,6 +60,7 @@ public abstract class CommandReflection extends CommandBase {
     protected void helpLogic(@NotNull CommandSource sender, @NotNull String[] args) {
         sender.sendMessage(TextComponent.of("Uses reflection to call API methods built into Bukkit."));
         sender.sendMessage(TextComponent.of("Try using the tab completion to see all available subcommands."));
+        sender.sendMessage(TextComponent.of("End a chain with " + TIME_FLAG + " to see how long each step took."));
     }
 
     @Override
@@ -63,7 +68,9 @@ public abstract class CommandReflection extends CommandBase {
         List<String> arguments = Arrays.asList(args);
         MethodMap reflectionMap = this.availableMethods;
 
-        return CommandUtil.getReflectiveCompletions(arguments, reflectionMap, mapCache);
+        CompletionSession session = completionSessions.computeIfAbsent(sender, k -> new CompletionSession(mapCache));
+        debuggery.getMetrics().recordCompletion();
+        return session.complete(arguments, reflectionMap);
     }
 
     /**
@@ -75,6 +82,11 @@ public abstract class CommandReflection extends CommandBase {
      * @return true if handled successfully
      */
     protected boolean doReflectionLookups(@NotNull CommandSource sender, @NotNull String[] args, Object instance) {
+        final boolean timed = args.length != 0 && args[args.length - 1].equals(TIME_FLAG);
+        if (timed) {
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+
         // 0 args just return info on object itself
         if (args.length == 0) {
             String result = getOutputStringFor(instance);
@@ -97,7 +109,11 @@ public abstract class CommandReflection extends CommandBase {
         }
 
         PlatformSender<?> platformSender = new PlatformSender<>(sender);
-        ReflectionResult chainResult = debuggery.runReflectionChain(args, instance, platformSender);
+        ReflectionResult chainResult = debuggery.runReflectionChain(args, instance, platformSender, timed);
+        final ChainTimings timings = chainResult.getTimings();
+        final long outputStart = System.nanoTime();
+        final long outputBytes = timings != null ? ChainTimings.getAllocatedBytes() : 0;
+
         switch (chainResult.getType()) {
             case SUCCESS:
                 notifySenderOfSuccess(sender, chainResult);
@@ -111,10 +127,18 @@ public abstract class CommandReflection extends CommandBase {
             case ARG_MISMATCH:
                 notifySenderOfResultReason(sender, chainResult);
                 break;
+            case TIMED_OUT:
+                notifySenderOfTimeout(sender, chainResult);
+                break;
             default:
                 throw new IllegalArgumentException("Unhandled switch case for result of type: " + chainResult.getType());
         }
 
+        if (timings != null) {
+            timings.recordOutput(System.nanoTime() - outputStart, ChainTimings.getAllocatedBytesSince(outputBytes));
+            sender.sendMessage(TextComponent.of(timings.format()).color(TextColor.GRAY));
+        }
+
         return true;
     }
 
@@ -139,6 +163,16 @@ public abstract class CommandReflection extends CommandBase {
         sender.sendMessage(TextComponent.of(chainResult.getReason()));
     }
 
+    private void notifySenderOfTimeout(CommandSource sender, ReflectionResult chainResult) {
+        Objects.requireNonNull(chainResult.getReason());
+        sender.sendMessage(TextComponent.of(chainResult.getReason()).color(TextColor.RED));
+
+        String output = getOutputStringFor(chainResult.getEndingInstance());
+        if (output != null) {
+            sender.sendMessage(TextComponent.of("Partial result: ").color(TextColor.GRAY).append(TextComponent.of(output)));
+        }
+    }
+
     private void notifySenderOfSuccess(CommandSource sender, ReflectionResult chainResult) {
         String output = getOutputStringFor(chainResult.getEndingInstance());
         if (output != null) {
@@ -157,6 +191,15 @@ public abstract class CommandReflection extends CommandBase {
         }
     }
 
+    /**
+     * Gets the class this command currently reflects against
+     *
+     * @return reflection class
+     */
+    public Class<?> getReflectionClass() {
+        return availableMethods.getMappedClass();
+    }
+
     /**
      * Convenience method to run objects past the TypeHandler
      *
@@ -164,7 +207,7 @@ public abstract class CommandReflection extends CommandBase {
      * @return textual description of Object
      */
     protected @Nullable String getOutputStringFor(@Nullable Object object) {
-        return debuggery.getTypeHandler().getOutputFor(object);
+        return debuggery.getTypeHandler().getOutputFor(object, debuggery.newOutputBudget());
     }
 
     private void sendFancyChatException(@NotNull CommandSource source, @NotNull String msg, @NotNull Throwable throwable) {